@@ -13,6 +13,11 @@ public class ZipCode implements Comparable<ZipCode> {
      */
     private static final Pattern ZIP_RE = Pattern.compile("^\\d{5}$");
 
+    /**
+     * Number of zip codes, "00000" through "99999".
+     */
+    static final int COUNT = 100000;
+
     /**
      * Lowest zip code "00000".
      */
@@ -21,7 +26,7 @@ public class ZipCode implements Comparable<ZipCode> {
     /**
      * Highest zip code "99999".
      */
-    private static final ZipCode MAX = new ZipCode(99999);
+    private static final ZipCode MAX = new ZipCode(COUNT - 1);
 
     private final int code;
 
@@ -66,6 +71,13 @@ public class ZipCode implements Comparable<ZipCode> {
         return new ZipCode(code);
     }
 
+    /**
+     * @return Zip code integer value
+     */
+    public int intValue() {
+        return this.code;
+    }
+
     /**
      * @return Previous zip code in integer order or {@link #MIN}
      */
@@ -0,0 +1,445 @@
+package com.williamssonoma.ziprange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>Bulk zip code membership lookup. Classifies a file of zip codes, one per
+ * line, against a set of zip code ranges.</p>
+ *
+ * <p>The ranges are held as a bit set over the whole zip code space (12.5 KB),
+ * so each lookup is a single bit test. The zip code file is memory mapped and
+ * split into chunks on line boundaries; chunks are classified in parallel and
+ * written to the output in file order.</p>
+ *
+ * <p>Usage (range arguments as for {@link ZipRange#main(String[])}):</p>
+ *
+ * <pre>
+ * java -cp ziprange.jar com.williamssonoma.ziprange.ZipCodeLookup
+ *     --zips=zips.txt [--output=out.txt] [--filter] [--threads=N] [args...]
+ * </pre>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipCodeLookup {
+    private static final Logger LOG = LogManager.getLogger(ZipCodeLookup.class);
+
+    /**
+     * Default number of zip code file bytes classified per task.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 25;
+
+    /**
+     * Output written for each zip code.
+     */
+    public enum Mode {
+        /**
+         * Every zip code, followed by ",1" if covered or ",0" if not.
+         */
+        FLAG,
+
+        /**
+         * Only the covered zip codes.
+         */
+        FILTER
+    }
+
+    /**
+     * Covered zip codes, one bit per zip code.
+     */
+    private final long[] covered = new long[(ZipCode.COUNT + 63) >>> 6];
+
+    /**
+     * Create a lookup for the given ranges.
+     *
+     * @param ranges Zip code ranges; need not be consolidated
+     */
+    public ZipCodeLookup(Iterable<ZipRange> ranges) {
+        for (ZipRange range : ranges) {
+            set(range.getLow().intValue(), range.getHigh().intValue());
+        }
+    }
+
+    /**
+     * Mark zip code values from low to high, inclusive, as covered.
+     */
+    private void set(int low, int high) {
+        int first = low >>> 6;
+        int last = high >>> 6;
+        long firstMask = -1L << low;
+        long lastMask = -1L >>> (63 - (high & 63));
+
+        if (first == last) {
+            this.covered[first] |= firstMask & lastMask;
+
+            return;
+        }
+
+        this.covered[first] |= firstMask;
+
+        for (int i = first + 1; i < last; i++) {
+            this.covered[i] = -1L;
+        }
+
+        this.covered[last] |= lastMask;
+    }
+
+    /**
+     * @param code Zip code
+     * @return {@code true} if the zip code is covered by the ranges
+     * @throws NullPointerException If argument is {@code null}
+     */
+    public boolean contains(ZipCode code) {
+        return contains(code.intValue());
+    }
+
+    private boolean contains(int code) {
+        return (this.covered[code >>> 6] & (1L << code)) != 0;
+    }
+
+    /**
+     * Counts of a classified zip code file.
+     */
+    public static class Counts {
+        private long zips;
+        private long covered;
+        private long malformed;
+
+        /**
+         * @return Number of well-formed zip codes
+         */
+        public long getZips() {
+            return this.zips;
+        }
+
+        /**
+         * @return Number of covered zip codes
+         */
+        public long getCovered() {
+            return this.covered;
+        }
+
+        /**
+         * @return Number of malformed lines; not written to the output
+         */
+        public long getMalformed() {
+            return this.malformed;
+        }
+
+        private void add(Counts counts) {
+            this.zips += counts.zips;
+            this.covered += counts.covered;
+            this.malformed += counts.malformed;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return this.zips + " zip codes, " + this.covered + " covered, " + this.malformed + " malformed";
+        }
+    }
+
+    /**
+     * Classify a zip code file using every available processor.
+     *
+     * @param zips Zip code file, one zip code per line
+     * @param out Output channel; not closed
+     * @param mode Output mode
+     * @return Counts
+     * @throws IOException If unable to read or write
+     */
+    public Counts classify(Path zips, WritableByteChannel out, Mode mode) throws IOException {
+        return classify(zips, out, mode, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Classify a zip code file. Blank lines are skipped; lines other than a
+     * 5-digit zip code, optionally surrounded by whitespace, are counted as
+     * malformed and skipped.
+     *
+     * @param zips Zip code file, one zip code per line
+     * @param out Output channel; not closed
+     * @param mode Output mode
+     * @param threads Number of threads
+     * @param chunkSize Number of file bytes classified per task
+     * @return Counts
+     * @throws IOException If unable to read or write
+     * @throws IllegalArgumentException If threads or chunk size is less than 1
+     */
+    public Counts classify(Path zips, WritableByteChannel out, Mode mode, int threads, int chunkSize)
+            throws IOException {
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Threads and chunk size must be positive: " + threads + ", " + chunkSize);
+        }
+
+        Counts counts = new Counts();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (FileChannel in = FileChannel.open(zips, StandardOpenOption.READ)) {
+            long size = in.size();
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+
+            for (long start = 0; start < size;) {
+                long end = lineEnd(in, start + chunkSize, size);
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+                inFlight.add(executor.submit(() -> classify(buffer, mode)));
+
+                // bound buffered output to a few chunks per thread
+                if (inFlight.size() >= 2 * threads) {
+                    write(inFlight.remove(), out, counts);
+                }
+
+                start = end;
+            }
+
+            while (!inFlight.isEmpty()) {
+                write(inFlight.remove(), out, counts);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        LOG.debug("Classified " + zips + ": " + counts);
+
+        return counts;
+    }
+
+    /**
+     * Find the end of the line containing the given position.
+     *
+     * @param in Zip code file
+     * @param position Nominal chunk end
+     * @param size File size
+     * @return Position after the next line feed at or after the given
+     *         position, or the file size
+     * @throws IOException If unable to read
+     */
+    private static long lineEnd(FileChannel in, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        // the chunk may already end with a line feed
+        for (long p = position - 1; p < size;) {
+            buffer.clear();
+
+            int n = in.read(buffer, p);
+
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return p + i + 1;
+                }
+            }
+
+            p += n;
+        }
+
+        return size;
+    }
+
+    /**
+     * Classified chunk output.
+     */
+    private static class Chunk {
+        private final Counts counts = new Counts();
+        private byte[] bytes;
+        private int length;
+
+        Chunk(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void ensureCapacity(int n) {
+            if (this.length + n > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + n));
+            }
+        }
+    }
+
+    /**
+     * Classify the zip codes in a chunk of whole lines.
+     *
+     * @param in Chunk
+     * @param mode Output mode
+     * @return Chunk output
+     */
+    private Chunk classify(ByteBuffer in, Mode mode) {
+        int limit = in.limit();
+        Chunk chunk = new Chunk(mode == Mode.FLAG ? limit + limit / 3 + 16 : limit + 16);
+
+        for (int i = 0; i < limit;) {
+            // skip leading whitespace
+            byte b = 0;
+
+            while (i < limit && (b = in.get(i)) != '\n' && Character.isWhitespace(b)) {
+                i++;
+            }
+
+            int start = i;
+            int value = 0;
+
+            while (i < limit && (b = in.get(i)) >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                i++;
+            }
+
+            int digits = i - start;
+
+            // skip trailing whitespace
+            while (i < limit && (b = in.get(i)) != '\n' && Character.isWhitespace(b)) {
+                i++;
+            }
+
+            boolean blank = digits == 0 && (i == limit || b == '\n');
+            boolean wellFormed = digits == 5 && (i == limit || b == '\n');
+
+            // skip to the next line
+            while (i < limit && in.get(i) != '\n') {
+                i++;
+            }
+
+            i++;
+
+            if (blank) {
+                continue;
+            }
+            else if (!wellFormed) {
+                chunk.counts.malformed++;
+
+                continue;
+            }
+
+            chunk.counts.zips++;
+
+            boolean covered = contains(value);
+
+            if (covered) {
+                chunk.counts.covered++;
+            }
+
+            if (mode == Mode.FLAG) {
+                chunk.ensureCapacity(8);
+                copy(in, start, chunk);
+                chunk.bytes[chunk.length++] = ',';
+                chunk.bytes[chunk.length++] = (byte) (covered ? '1' : '0');
+                chunk.bytes[chunk.length++] = '\n';
+            }
+            else if (covered) {
+                chunk.ensureCapacity(6);
+                copy(in, start, chunk);
+                chunk.bytes[chunk.length++] = '\n';
+            }
+        }
+
+        return chunk;
+    }
+
+    private static void copy(ByteBuffer in, int start, Chunk chunk) {
+        for (int j = start; j < start + 5; j++) {
+            chunk.bytes[chunk.length++] = in.get(j);
+        }
+    }
+
+    /**
+     * Write a classified chunk once complete.
+     *
+     * @param future Chunk task
+     * @param out Output channel
+     * @param counts Running counts
+     * @throws IOException If unable to write or the chunk task failed
+     */
+    private static void write(Future<Chunk> future, WritableByteChannel out, Counts counts) throws IOException {
+        Chunk chunk;
+
+        try {
+            chunk = future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while classifying zip codes", e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Unable to classify zip codes", e.getCause());
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(chunk.bytes, 0, chunk.length);
+
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+
+        counts.add(chunk.counts);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path zips = null;
+        Path output = null;
+        Mode mode = Mode.FLAG;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> ranges = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--zips=")) {
+                zips = Paths.get(arg.substring("--zips=".length()));
+            }
+            else if (arg.startsWith("--output=")) {
+                output = Paths.get(arg.substring("--output=".length()));
+            }
+            else if (arg.equals("--filter")) {
+                mode = Mode.FILTER;
+            }
+            else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            }
+            else {
+                ranges.add(arg);
+            }
+        }
+
+        if (zips == null) {
+            throw new IllegalArgumentException("Zip code file is required (--zips=file)");
+        }
+
+        ZipCodeLookup lookup = new ZipCodeLookup(ZipRange.parseRanges(ranges.toArray(new String[0])));
+
+        // classify logs its summary at debug level; stdout may carry the output
+        if (output == null) {
+            lookup.classify(zips, Channels.newChannel(System.out), mode, threads, DEFAULT_CHUNK_SIZE);
+
+            System.out.flush();
+        }
+        else {
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                lookup.classify(zips, out, mode, threads, DEFAULT_CHUNK_SIZE);
+            }
+        }
+    }
+}
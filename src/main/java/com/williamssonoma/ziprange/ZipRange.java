@@ -1,19 +1,18 @@
 package com.williamssonoma.ziprange;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.apache.logging.log4j.LogManager;
@@ -43,6 +42,20 @@ public class ZipRange implements Comparable<ZipRange> {
         this.high = a.max(b);
     }
 
+    /**
+     * @return Lowest zip code in the range
+     */
+    public ZipCode getLow() {
+        return this.low;
+    }
+
+    /**
+     * @return Highest zip code in the range
+     */
+    public ZipCode getHigh() {
+        return this.high;
+    }
+
     /**
      * <p>Determines if the given zip ranges may be merged together. That is, the
      * given ranges either intersect or one immediately follows the other.</p>
@@ -193,11 +206,23 @@ public class ZipRange implements Comparable<ZipRange> {
      * @return Parsed zip code ranges
      */
     protected static List<ZipRange> parseRanges(String[] args) {
-        List<ZipRange> ranges = Stream.of(args)
-                .flatMap(ZipRange::parsePairs)
-                .map(ZipRange::parseRange)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<ZipRange> ranges = new ArrayList<>();
+
+        for (String arg : args) {
+            List<ZipRange> parsed = new ArrayList<>();
+
+            // a file that cannot be read in full contributes no ranges
+            try {
+                parseArgument(arg, parsed::add);
+            }
+            catch (IOException e) {
+                LOG.error("Unable to read " + arg, e);
+
+                continue;
+            }
+
+            ranges.addAll(parsed);
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("Parsed ranges:\n" + printRanges(ranges));
@@ -217,33 +242,25 @@ public class ZipRange implements Comparable<ZipRange> {
     }
 
     /**
-     * Parse zip code pairs (e.g. [00012,95632]) from program arguments.
+     * Parse zip code ranges (e.g. [00012,95632]) from a program argument.
      *
-     * @param arg Program argument
-     * @return Stream of zip code pairs
+     * @param arg Program argument; ranges or a file of ranges
+     * @param ranges Receives each parsed zip code range; ranges parsed before
+     *        a file read fails have already been received
+     * @throws IOException If unable to read a file argument
      */
-    private static Stream<String> parsePairs(String arg) {
+    static void parseArgument(String arg, Consumer<? super ZipRange> ranges) throws IOException {
         LOG.trace("Argument: " + arg);
 
         Path p = Paths.get(arg);
 
-        Function<String, Stream<String>> split = l -> Stream.of(l.split("\\s+"));
-
         if (p.toFile().exists()) {
             LOG.debug("Found file at " + p);
 
-            try (Stream<String> lines = Files.lines(p)) {
-                // collecting stream before file stream is closed
-                return lines.flatMap(split).collect(Collectors.toList()).stream();
-            }
-            catch (IOException e) {
-                LOG.error("Unable to read " + arg, e);
-
-                return Stream.empty();
-            }
+            ZipRangeParser.parse(p, ranges);
         }
         else {
-            return split.apply(arg);
+            ZipRangeParser.parse(arg, ranges);
         }
     }
 
@@ -251,9 +268,9 @@ public class ZipRange implements Comparable<ZipRange> {
      * Parse zip codes from given pair and build a zip code range.
      *
      * @param pair Zip code pair (e.g. "[00012,95632]")
-     * @return Zip code range
+     * @return Zip code range or {@code null} if unable to parse
      */
-    private static ZipRange parseRange(String pair) {
+    static ZipRange parseRange(String pair) {
         LOG.trace("Zip code pair: " + pair);
 
         Matcher matcher = ARGS_PATTERN.matcher(pair);
@@ -0,0 +1,247 @@
+package com.williamssonoma.ziprange;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>Batch consolidation of many jobs sharing source files.</p>
+ *
+ * <p>Jobs are read from a manifest with one job per line: a job name, an
+ * output file and the job's arguments as for {@link ZipRange#main(String[])},
+ * all whitespace delimited. Blank lines and lines starting with {@code #} are
+ * ignored. E.g.:</p>
+ *
+ * <pre>
+ * # name   output          arguments
+ * west     out/west.txt    sources/ca.txt sources/or.txt [98000,98199]
+ * pacific  out/pacific.txt sources/ca.txt sources/hi.txt
+ * </pre>
+ *
+ * <p>Every distinct argument is parsed and consolidated once, in parallel,
+ * before any job runs; an argument that is neither a readable file nor zip
+ * code ranges, e.g. a mistyped file name, fails the whole batch. Each job's
+ * output is then the union of its arguments' consolidated sets,
+ * merged in parallel across jobs.</p>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeBatch {
+    private static final Logger LOG = LogManager.getLogger(ZipRangeBatch.class);
+
+    /**
+     * Consolidation job.
+     */
+    public static class Job {
+        private final String name;
+        private final Path output;
+        private final List<String> args;
+
+        /**
+         * @param name Job name
+         * @param output Output file
+         * @param args Zip code ranges and/or files
+         */
+        public Job(String name, Path output, List<String> args) {
+            this.name = name;
+            this.output = output;
+            this.args = Collections.unmodifiableList(new ArrayList<>(args));
+        }
+
+        /**
+         * @return Job name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return Output file
+         */
+        public Path getOutput() {
+            return this.output;
+        }
+
+        /**
+         * @return Zip code ranges and/or files
+         */
+        public List<String> getArgs() {
+            return this.args;
+        }
+    }
+
+    /**
+     * Read jobs from a manifest.
+     *
+     * @param manifest Manifest file
+     * @return Jobs in manifest order
+     * @throws IOException If unable to read
+     * @throws IllegalArgumentException If a job has no output or a job name
+     *         is repeated
+     */
+    public static List<Job> readManifest(Path manifest) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int number = 0;
+
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            number++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+
+            if (fields.length < 2) {
+                throw new IllegalArgumentException(
+                        "Job must have a name and output at " + manifest + ":" + number + ": \"" + line + "\"");
+            }
+
+            if (!names.add(fields[0])) {
+                throw new IllegalArgumentException(
+                        "Duplicate job \"" + fields[0] + "\" at " + manifest + ":" + number);
+            }
+
+            jobs.add(new Job(fields[0], Paths.get(fields[1]),
+                    Arrays.asList(fields).subList(2, fields.length)));
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Consolidate and write every job.
+     *
+     * @param jobs Jobs
+     * @return Consolidated ranges by job name, in job order
+     * @throws IOException If unable to read a file argument or write an output
+     *         file; no output file is written if an argument cannot be read
+     * @throws IllegalArgumentException If an argument is neither a file nor
+     *         zip code ranges; no output file is written
+     */
+    public static Map<String, ZipRangeSet> run(List<Job> jobs) throws IOException {
+        long start = System.nanoTime();
+
+        // parse and consolidate each distinct argument once
+        Map<String, ZipRangeSet> sources = new ConcurrentHashMap<>();
+
+        try {
+            jobs.stream()
+                    .flatMap(job -> job.getArgs().stream())
+                    .distinct()
+                    .collect(Collectors.toList())
+                    .parallelStream()
+                    .forEach(arg -> sources.put(arg, source(arg)));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        LOG.info("Consolidated " + sources.size() + " sources in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        Map<String, ZipRangeSet> results = new ConcurrentHashMap<>();
+
+        try {
+            jobs.parallelStream().forEach(job -> {
+                ZipRangeSet union = ZipRangeSet.union(job.getArgs().stream()
+                        .map(sources::get)
+                        .collect(Collectors.toList()));
+
+                write(job, union);
+
+                results.put(job.getName(), union);
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        LOG.info("Ran " + jobs.size() + " jobs in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        Map<String, ZipRangeSet> ordered = new LinkedHashMap<>();
+
+        for (Job job : jobs) {
+            ordered.put(job.getName(), results.get(job.getName()));
+        }
+
+        return ordered;
+    }
+
+    /**
+     * Parse and consolidate a job argument.
+     *
+     * @param arg Zip code ranges or a file of ranges
+     * @return Consolidated ranges
+     * @throws UncheckedIOException If unable to read a file argument
+     * @throws IllegalArgumentException If the argument is neither a file nor
+     *         zip code ranges
+     */
+    private static ZipRangeSet source(String arg) {
+        List<ZipRange> ranges = new ArrayList<>();
+
+        try {
+            ZipRange.parseArgument(arg, ranges::add);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + arg, e);
+        }
+
+        // a mistyped file name is parsed as inline ranges, finding none
+        if (ranges.isEmpty() && !Files.isRegularFile(Paths.get(arg))) {
+            throw new IllegalArgumentException("Neither a file nor zip code ranges: \"" + arg + "\"");
+        }
+
+        return new ZipRangeSet(ranges);
+    }
+
+    /**
+     * Write a job's consolidated ranges, as printed by
+     * {@link ZipRange#main(String[])}.
+     *
+     * @param job Job
+     * @param ranges Consolidated ranges
+     * @throws UncheckedIOException If unable to write
+     */
+    private static void write(Job job, ZipRangeSet ranges) {
+        try {
+            Path parent = job.getOutput().toAbsolutePath().getParent();
+
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            Files.write(job.getOutput(), Collections.singletonList(ranges.toString()), StandardCharsets.UTF_8);
+
+            LOG.debug("Wrote " + job.getName() + " to " + job.getOutput());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to write " + job.getName() + " to " + job.getOutput(), e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Expected a single manifest file argument");
+        }
+
+        run(readManifest(Paths.get(args[0])));
+    }
+}
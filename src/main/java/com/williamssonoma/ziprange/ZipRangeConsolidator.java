@@ -0,0 +1,404 @@
+package com.williamssonoma.ziprange;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>Reactive consolidation stage. Subscribes to a publisher of zip code
+ * ranges and publishes the {@link ZipRange#consolidate(Iterable) consolidated}
+ * set of ranges to a single downstream subscriber.</p>
+ *
+ * <p>Ranges are merged into a running consolidated set as they arrive, so
+ * memory is bounded by the number of disjoint ranges in the output rather
+ * than the number of ranges received. Upstream demand is requested in
+ * batches and replenished as each half batch is consumed.</p>
+ *
+ * <p>The final consolidated set is published when upstream completes. If a
+ * snapshot interval is given, a snapshot of the running set is also published
+ * after every interval of ranges received. Snapshots are only delivered
+ * against downstream demand; a snapshot not yet requested is replaced by the
+ * next one.</p>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeConsolidator implements Flow.Processor<ZipRange, Set<ZipRange>> {
+    private static final Logger LOG = LogManager.getLogger(ZipRangeConsolidator.class);
+
+    /**
+     * Default number of ranges requested from upstream at a time.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final int batchSize;
+    private final long snapshotInterval;
+
+    /**
+     * Running consolidated ranges; disjoint and non-adjacent.
+     */
+    private final TreeSet<ZipRange> consolidated = new TreeSet<>();
+
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super Set<ZipRange>> downstream;
+
+    /**
+     * Ranges received since upstream demand was last replenished.
+     */
+    private int received;
+
+    /**
+     * Ranges received since the last snapshot.
+     */
+    private long sinceSnapshot;
+
+    /**
+     * Outstanding downstream demand.
+     */
+    private long demand;
+
+    /**
+     * Snapshot or final set awaiting downstream demand.
+     */
+    private Set<ZipRange> pending;
+
+    private boolean completed;
+    private Throwable error;
+    private boolean done;
+
+    private boolean draining;
+    private boolean missed;
+
+    /**
+     * Create a consolidation stage publishing only the final consolidated set.
+     */
+    public ZipRangeConsolidator() {
+        this(DEFAULT_BATCH_SIZE, 0);
+    }
+
+    /**
+     * Create a consolidation stage.
+     *
+     * @param batchSize Number of ranges requested from upstream at a time
+     * @param snapshotInterval Number of ranges received between published
+     *        snapshots, or {@code 0} to publish only the final set
+     * @throws IllegalArgumentException If batch size is less than 1 or
+     *         snapshot interval is negative
+     */
+    public ZipRangeConsolidator(int batchSize, long snapshotInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Snapshot interval must not be negative: " + snapshotInterval);
+        }
+
+        this.batchSize = batchSize;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Flow.Publisher#subscribe(java.util.concurrent.Flow.Subscriber)
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Set<ZipRange>> subscriber) {
+        Objects.requireNonNull(subscriber);
+
+        boolean accepted;
+
+        synchronized (this) {
+            accepted = this.downstream == null;
+
+            if (accepted) {
+                this.downstream = subscriber;
+            }
+        }
+
+        // signalled outside the lock
+        if (accepted) {
+            subscriber.onSubscribe(new Subscription());
+
+            drain();
+        }
+        else {
+            reject(subscriber);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Flow.Subscriber#onSubscribe(java.util.concurrent.Flow.Subscription)
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (this) {
+            if (this.upstream != null || this.done) {
+                LOG.warn("Already subscribed; cancelling additional subscription");
+
+                subscription.cancel();
+
+                return;
+            }
+
+            this.upstream = subscription;
+        }
+
+        subscription.request(this.batchSize);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Flow.Subscriber#onNext(java.lang.Object)
+     */
+    @Override
+    public void onNext(ZipRange range) {
+        Objects.requireNonNull(range);
+
+        boolean replenish = false;
+        boolean snapshot = false;
+
+        synchronized (this) {
+            if (this.done) {
+                return;
+            }
+
+            merge(range);
+
+            // keep between a half and a full batch outstanding
+            if (++this.received == this.batchSize - this.batchSize / 2) {
+                this.received = 0;
+                replenish = true;
+            }
+
+            if (this.snapshotInterval > 0 && ++this.sinceSnapshot == this.snapshotInterval) {
+                this.sinceSnapshot = 0;
+                this.pending = snapshot();
+                snapshot = true;
+            }
+        }
+
+        if (replenish) {
+            this.upstream.request(this.batchSize - this.batchSize / 2);
+        }
+
+        if (snapshot) {
+            drain();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Flow.Subscriber#onError(java.lang.Throwable)
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            this.error = throwable;
+        }
+
+        drain();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Flow.Subscriber#onComplete()
+     */
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            this.completed = true;
+            this.pending = snapshot();
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Consolidated " + this.consolidated.size() + " ranges");
+            }
+        }
+
+        drain();
+    }
+
+    /**
+     * Merge the given range into the running consolidated set.
+     *
+     * @param range Zip code range
+     */
+    private void merge(ZipRange range) {
+        ZipRange merged = range;
+
+        // only the nearest lower range may reach the new range
+        ZipRange lower = this.consolidated.floor(merged);
+
+        if (lower != null && ZipRange.mergeable(lower, merged)) {
+            this.consolidated.remove(lower);
+
+            merged = ZipRange.enclosing(lower, merged);
+        }
+
+        // absorb every higher range now intersecting or adjacent
+        ZipRange higher = this.consolidated.higher(merged);
+
+        while (higher != null && ZipRange.mergeable(merged, higher)) {
+            this.consolidated.remove(higher);
+
+            merged = ZipRange.enclosing(merged, higher);
+            higher = this.consolidated.higher(merged);
+        }
+
+        this.consolidated.add(merged);
+    }
+
+    /**
+     * @return Copy of the running consolidated set
+     */
+    private Set<ZipRange> snapshot() {
+        return Collections.unmodifiableSet(new TreeSet<>(this.consolidated));
+    }
+
+    /**
+     * Deliver pending signals downstream. Signals are never delivered while
+     * holding the lock, and reentrant calls (e.g. a request from within
+     * {@code onNext}) are folded into the outer loop so signals stay serial.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (this.draining) {
+                this.missed = true;
+
+                return;
+            }
+
+            this.draining = true;
+        }
+
+        for (;;) {
+            Flow.Subscriber<? super Set<ZipRange>> subscriber;
+            Set<ZipRange> item = null;
+            Throwable failure = null;
+            boolean complete = false;
+
+            synchronized (this) {
+                subscriber = this.downstream;
+
+                if (subscriber != null && !this.done) {
+                    if (this.error != null) {
+                        failure = this.error;
+                        this.done = true;
+                    }
+                    else if (this.pending != null && this.demand > 0) {
+                        item = this.pending;
+                        this.pending = null;
+                        this.demand--;
+                    }
+                    else if (this.completed && this.pending == null) {
+                        complete = true;
+                        this.done = true;
+                    }
+                }
+
+                if (item == null && failure == null && !complete) {
+                    if (!this.missed) {
+                        this.draining = false;
+
+                        return;
+                    }
+
+                    this.missed = false;
+
+                    continue;
+                }
+            }
+
+            if (failure != null) {
+                subscriber.onError(failure);
+            }
+            else if (item != null) {
+                subscriber.onNext(item);
+            }
+            else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    /**
+     * Signal an additional subscriber that only one subscriber is supported.
+     *
+     * @param subscriber Rejected subscriber
+     */
+    private static void reject(Flow.Subscriber<?> subscriber) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                // nothing to deliver
+            }
+
+            @Override
+            public void cancel() {
+                // nothing to cancel
+            }
+        });
+
+        subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+    }
+
+    /**
+     * Downstream subscription.
+     */
+    private class Subscription implements Flow.Subscription {
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.Flow.Subscription#request(long)
+         */
+        @Override
+        public void request(long n) {
+            Flow.Subscription subscription = null;
+
+            synchronized (ZipRangeConsolidator.this) {
+                if (n <= 0) {
+                    if (error == null) {
+                        error = new IllegalArgumentException("Requested demand must be positive: " + n);
+                    }
+
+                    subscription = upstream;
+                }
+                else {
+                    // saturate at Long.MAX_VALUE (i.e. unbounded)
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+
+            if (subscription != null) {
+                subscription.cancel();
+            }
+
+            drain();
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.Flow.Subscription#cancel()
+         */
+        @Override
+        public void cancel() {
+            Flow.Subscription subscription;
+
+            synchronized (ZipRangeConsolidator.this) {
+                done = true;
+                pending = null;
+                consolidated.clear();
+
+                subscription = upstream;
+            }
+
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.williamssonoma.ziprange;
+
+import java.util.Arrays;
+
+/**
+ * <p>Coverage depth of zip code ranges: the number of input ranges covering
+ * each zip code. Unlike {@link ZipRange#consolidate(Iterable)}, multiplicity
+ * is kept, so the zip codes covered by at least k ranges and the exact depth
+ * histogram are available.</p>
+ *
+ * <p>Depth is computed in a single pass over the ranges. Few ranges are
+ * buffered as sorted endpoints and swept in O(n log n); once there are more
+ * than would pay off, the ranges are applied to a difference array over the
+ * zip code space instead, in O(n + 100,000). Either way the result is kept as
+ * runs of equal depth in primitive arrays, with no per zip code
+ * allocation.</p>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeDepth {
+    /**
+     * Default number of ranges above which the difference array is used.
+     */
+    static final int SPARSE_LIMIT = ZipCode.COUNT / 32;
+
+    /**
+     * Lowest zip code value of each run of equal depth; the first run starts
+     * at 0 and each run ends before the next.
+     */
+    private final int[] starts;
+
+    /**
+     * Depth of each run.
+     */
+    private final int[] depths;
+
+    /**
+     * Number of zip codes at each depth.
+     */
+    private final long[] histogram;
+
+    /**
+     * Compute the coverage depth of the given ranges.
+     *
+     * @param ranges Zip code ranges; need not be consolidated
+     */
+    public ZipRangeDepth(Iterable<ZipRange> ranges) {
+        this(ranges, SPARSE_LIMIT);
+    }
+
+    /**
+     * Compute the coverage depth of the given ranges, using the difference
+     * array once more than the given number of ranges are seen.
+     */
+    ZipRangeDepth(Iterable<ZipRange> ranges, int sparseLimit) {
+        // endpoints as (zip code value << 1) | 1 for a start, << 1 for an end
+        int[] events = new int[16];
+        int n = 0;
+        int[] diff = null;
+
+        for (ZipRange range : ranges) {
+            int low = range.getLow().intValue();
+            int high = range.getHigh().intValue();
+
+            if (diff != null) {
+                diff[low]++;
+                diff[high + 1]--;
+
+                continue;
+            }
+
+            if (n + 2 > events.length) {
+                events = Arrays.copyOf(events, events.length * 2);
+            }
+
+            events[n++] = low << 1 | 1;
+            events[n++] = (high + 1) << 1;
+
+            // too many ranges for sorting endpoints to pay off
+            if (n > 2 * sparseLimit) {
+                diff = new int[ZipCode.COUNT + 1];
+
+                for (int i = 0; i < n; i++) {
+                    diff[events[i] >>> 1] += (events[i] & 1) == 1 ? 1 : -1;
+                }
+            }
+        }
+
+        Runs runs = new Runs(Math.min(diff == null ? n + 1 : ZipCode.COUNT, ZipCode.COUNT));
+
+        if (diff == null) {
+            Arrays.sort(events, 0, n);
+
+            int depth = 0;
+
+            for (int i = 0; i < n;) {
+                int position = events[i] >>> 1;
+
+                // apply every endpoint at this position
+                for (; i < n && events[i] >>> 1 == position; i++) {
+                    depth += (events[i] & 1) == 1 ? 1 : -1;
+                }
+
+                runs.add(position, depth);
+            }
+        }
+        else {
+            int depth = 0;
+
+            for (int code = 0; code < ZipCode.COUNT; code++) {
+                depth += diff[code];
+
+                runs.add(code, depth);
+            }
+        }
+
+        this.starts = Arrays.copyOf(runs.starts, runs.size);
+        this.depths = Arrays.copyOf(runs.depths, runs.size);
+        this.histogram = runs.histogram();
+    }
+
+    /**
+     * Runs of equal depth under construction.
+     */
+    private static class Runs {
+        private final int[] starts;
+        private final int[] depths;
+        private int size;
+
+        Runs(int capacity) {
+            this.starts = new int[capacity + 1];
+            this.depths = new int[capacity + 1];
+            this.size = 1;
+        }
+
+        /**
+         * Set the depth from the given zip code value onward.
+         */
+        void add(int start, int depth) {
+            if (start >= ZipCode.COUNT || depth == this.depths[this.size - 1]) {
+                return;
+            }
+
+            if (start == this.starts[this.size - 1]) {
+                this.depths[this.size - 1] = depth;
+            }
+            else {
+                this.starts[this.size] = start;
+                this.depths[this.size] = depth;
+                this.size++;
+            }
+        }
+
+        long[] histogram() {
+            int max = 0;
+
+            for (int i = 0; i < this.size; i++) {
+                max = Math.max(max, this.depths[i]);
+            }
+
+            long[] histogram = new long[max + 1];
+
+            for (int i = 0; i < this.size; i++) {
+                int end = i + 1 < this.size ? this.starts[i + 1] : ZipCode.COUNT;
+
+                histogram[this.depths[i]] += end - this.starts[i];
+            }
+
+            return histogram;
+        }
+    }
+
+    /**
+     * @return Greatest number of ranges covering any zip code
+     */
+    public int getMaxDepth() {
+        return this.histogram.length - 1;
+    }
+
+    /**
+     * @return Number of zip codes covered by exactly d ranges, indexed by d
+     *         from 0 to {@link #getMaxDepth()}
+     */
+    public long[] getHistogram() {
+        return this.histogram.clone();
+    }
+
+    /**
+     * @param code Zip code
+     * @return Number of ranges covering the zip code
+     * @throws NullPointerException If argument is {@code null}
+     */
+    public int depth(ZipCode code) {
+        int i = Arrays.binarySearch(this.starts, code.intValue());
+
+        return this.depths[i >= 0 ? i : -i - 2];
+    }
+
+    /**
+     * @param k Depth threshold
+     * @return Consolidated ranges of zip codes covered by at least k ranges
+     * @throws IllegalArgumentException If k is negative
+     */
+    public ZipRangeSet atLeast(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + k);
+        }
+
+        int[] lows = new int[this.starts.length];
+        int[] highs = new int[this.starts.length];
+        int n = 0;
+
+        for (int i = 0; i < this.starts.length; i++) {
+            if (this.depths[i] < k) {
+                continue;
+            }
+
+            int high = i + 1 < this.starts.length ? this.starts[i + 1] - 1 : ZipCode.COUNT - 1;
+
+            // runs at or above the threshold are merged with the previous run
+            if (n > 0 && highs[n - 1] + 1 == this.starts[i]) {
+                highs[n - 1] = high;
+            }
+            else {
+                lows[n] = this.starts[i];
+                highs[n] = high;
+                n++;
+            }
+        }
+
+        return new ZipRangeSet(Arrays.copyOf(lows, n), Arrays.copyOf(highs, n));
+    }
+}
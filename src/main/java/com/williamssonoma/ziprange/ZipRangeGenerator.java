@@ -0,0 +1,405 @@
+package com.williamssonoma.ziprange;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>Synthetic workload generator. Writes zip code range files in the format
+ * accepted by {@link ZipRange#main(String[])} with a controlled number of
+ * ranges, overlap and adjacency ratios, sort order and rate of malformed
+ * tokens. Output is fully determined by the seed.</p>
+ *
+ * <p>Overlap and adjacency are relative to the previously generated range:
+ * an overlapping range starts within the previous range and an adjacent range
+ * starts immediately after it. Any other range starts at a random zip code in
+ * random order, or after a gap following the previous range in sorted
+ * order.</p>
+ *
+ * <p>Sorted output is a single ascending (or, mirrored, descending) sweep of
+ * the zip code space at any count. Whenever the sweep gets ahead of an even
+ * spread of the ranges over the zip code space, the next range repeats the
+ * previous lowest zip code, so counts larger than the configured ratios can
+ * spread over the space raise the effective overlap ratio.</p>
+ *
+ * <p>Usage:</p>
+ *
+ * <pre>
+ * java -cp ziprange.jar com.williamssonoma.ziprange.ZipRangeGenerator output.txt
+ *     [--count=1000000] [--overlap=0.3] [--adjacency=0.1] [--order=random]
+ *     [--malformed=0.0] [--width=100] [--per-line=8] [--seed=0]
+ * </pre>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeGenerator {
+    private static final Logger LOG = LogManager.getLogger(ZipRangeGenerator.class);
+
+    /**
+     * Order in which ranges are written.
+     */
+    public enum Order {
+        RANDOM, ASCENDING, DESCENDING
+    }
+
+    private long count = 1_000_000;
+    private double overlap = 0.3;
+    private double adjacency = 0.1;
+    private Order order = Order.RANDOM;
+    private double malformed;
+    private int width = 100;
+    private int perLine = 8;
+    private long seed;
+
+    /**
+     * @param count Number of range tokens to write, including malformed tokens
+     * @return This generator
+     * @throws IllegalArgumentException If count is negative
+     */
+    public ZipRangeGenerator count(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+
+        this.count = count;
+
+        return this;
+    }
+
+    /**
+     * @param overlap Fraction of ranges starting within the previous range
+     * @return This generator
+     * @throws IllegalArgumentException If not a valid ratio
+     */
+    public ZipRangeGenerator overlap(double overlap) {
+        this.overlap = ratio("Overlap", overlap);
+
+        return this;
+    }
+
+    /**
+     * @param adjacency Fraction of ranges starting immediately after the
+     *        previous range
+     * @return This generator
+     * @throws IllegalArgumentException If not a valid ratio
+     */
+    public ZipRangeGenerator adjacency(double adjacency) {
+        this.adjacency = ratio("Adjacency", adjacency);
+
+        return this;
+    }
+
+    /**
+     * @param order Order in which ranges are written
+     * @return This generator
+     * @throws NullPointerException If argument is {@code null}
+     */
+    public ZipRangeGenerator order(Order order) {
+        this.order = Objects.requireNonNull(order);
+
+        return this;
+    }
+
+    /**
+     * @param malformed Fraction of tokens written malformed
+     * @return This generator
+     * @throws IllegalArgumentException If not a valid ratio
+     */
+    public ZipRangeGenerator malformed(double malformed) {
+        this.malformed = ratio("Malformed", malformed);
+
+        return this;
+    }
+
+    /**
+     * @param width Largest range width and gap between disjoint ranges
+     * @return This generator
+     * @throws IllegalArgumentException If width is negative or larger than
+     *         the zip code space
+     */
+    public ZipRangeGenerator width(int width) {
+        if (width < 0 || width >= ZipCode.COUNT) {
+            throw new IllegalArgumentException("Width must be between 0 and " + (ZipCode.COUNT - 1) + ": " + width);
+        }
+
+        this.width = width;
+
+        return this;
+    }
+
+    /**
+     * @param perLine Number of range tokens per line
+     * @return This generator
+     * @throws IllegalArgumentException If less than 1
+     */
+    public ZipRangeGenerator perLine(int perLine) {
+        if (perLine < 1) {
+            throw new IllegalArgumentException("Ranges per line must be positive: " + perLine);
+        }
+
+        this.perLine = perLine;
+
+        return this;
+    }
+
+    /**
+     * @param seed Random seed
+     * @return This generator
+     */
+    public ZipRangeGenerator seed(long seed) {
+        this.seed = seed;
+
+        return this;
+    }
+
+    /**
+     * Generate the configured number of ranges in memory.
+     *
+     * @return Ranges in generated order; malformed tokens are dropped
+     * @throws IllegalStateException If overlap and adjacency ratios exceed 1
+     */
+    public List<ZipRange> generate() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            generate(out);
+        }
+        catch (IOException e) {
+            // not thrown by ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+
+        List<ZipRange> ranges = new ArrayList<>();
+
+        ZipRangeParser.parse(ByteBuffer.wrap(out.toByteArray()), ranges::add);
+
+        return ranges;
+    }
+
+    /**
+     * Write the configured number of range tokens to the given stream.
+     *
+     * @param out Output stream; not closed
+     * @return Number of bytes written
+     * @throws IOException If unable to write
+     * @throws IllegalStateException If overlap and adjacency ratios exceed 1
+     */
+    public long generate(OutputStream out) throws IOException {
+        if (this.overlap + this.adjacency > 1) {
+            throw new IllegalStateException(
+                    "Overlap and adjacency ratios must not exceed 1 in total: " + this.overlap + " + " + this.adjacency);
+        }
+
+        Random random = new Random(this.seed);
+        byte[] token = new byte[ZipRangeParser.TOKEN_LENGTH + 2];
+        long bytes = 0;
+
+        // previously generated range; -1 before the first range
+        int prevLow = -1;
+        int prevHigh = -1;
+
+        boolean sorted = this.order != Order.RANDOM;
+
+        for (long i = 0; i < this.count; i++) {
+            double kind = random.nextDouble();
+            int low;
+
+            // highest zip code an even spread of the ranges would reach
+            long pace = (i + 1) * ZipCode.COUNT / this.count;
+
+            // a sorted sweep ahead of an even spread repeats the previous lowest zip code
+            if (sorted && prevLow >= 0 && prevHigh >= pace) {
+                low = prevLow;
+            }
+            else if (prevLow >= 0 && kind < this.overlap) {
+                low = prevLow + random.nextInt(prevHigh - prevLow + 1);
+            }
+            else if (prevLow >= 0 && kind < this.overlap + this.adjacency) {
+                low = prevHigh + 1;
+            }
+            else if (!sorted) {
+                low = random.nextInt(ZipCode.COUNT);
+            }
+            else {
+                low = prevHigh + 2 + random.nextInt(this.width + 1);
+            }
+
+            // past the highest zip code; a sorted sweep never wraps
+            if (low >= ZipCode.COUNT) {
+                low = sorted ? prevLow : random.nextInt(ZipCode.COUNT);
+            }
+
+            int high = Math.min(low + random.nextInt(this.width + 1), ZipCode.COUNT - 1);
+
+            // non-decreasing highs, so mirrored lows are non-increasing
+            if (this.order == Order.DESCENDING) {
+                high = Math.max(high, prevHigh);
+            }
+
+            prevLow = low;
+            prevHigh = high;
+
+            int length;
+
+            if (this.order == Order.DESCENDING) {
+                length = encode(token, ZipCode.COUNT - 1 - high, ZipCode.COUNT - 1 - low);
+            }
+            else {
+                length = encode(token, low, high);
+            }
+
+            if (this.malformed > 0 && random.nextDouble() < this.malformed) {
+                length = malform(token, random);
+            }
+
+            token[length++] = (byte) ((i + 1) % this.perLine == 0 || i + 1 == this.count ? '\n' : ' ');
+
+            out.write(token, 0, length);
+            bytes += length;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Write a well-formed range token.
+     *
+     * @param token Token buffer
+     * @param low Lowest zip code value
+     * @param high Highest zip code value
+     * @return Token length
+     */
+    private static int encode(byte[] token, int low, int high) {
+        token[0] = '[';
+        digits(token, 1, low);
+        token[6] = ',';
+        digits(token, 7, high);
+        token[12] = ']';
+
+        return ZipRangeParser.TOKEN_LENGTH;
+    }
+
+    /**
+     * Write the 5 digits of the given value, zero padded.
+     */
+    private static void digits(byte[] token, int offset, int value) {
+        for (int i = offset + 4; i >= offset; i--) {
+            token[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Corrupt a well-formed range token so it is rejected by the parser.
+     *
+     * @param token Well-formed token
+     * @param random Random source
+     * @return Token length
+     */
+    private static int malform(byte[] token, Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                // missing opening bracket
+                System.arraycopy(token, 1, token, 0, ZipRangeParser.TOKEN_LENGTH - 1);
+                return ZipRangeParser.TOKEN_LENGTH - 1;
+            case 1:
+                // wrong separator
+                token[6] = ';';
+                return ZipRangeParser.TOKEN_LENGTH;
+            case 2:
+                // non-digit
+                token[1 + random.nextInt(5)] = 'x';
+                return ZipRangeParser.TOKEN_LENGTH;
+            default:
+                // four digit zip code
+                System.arraycopy(token, 2, token, 1, ZipRangeParser.TOKEN_LENGTH - 2);
+                return ZipRangeParser.TOKEN_LENGTH - 1;
+        }
+    }
+
+    private static double ratio(String name, double ratio) {
+        if (!(ratio >= 0 && ratio <= 1)) {
+            throw new IllegalArgumentException(name + " ratio must be between 0 and 1: " + ratio);
+        }
+
+        return ratio;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ZipRangeGenerator generator = new ZipRangeGenerator();
+        Path output = null;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                output = Paths.get(arg);
+
+                continue;
+            }
+
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected --option=value: " + arg);
+            }
+
+            String value = arg.substring(eq + 1);
+
+            switch (arg.substring(2, eq)) {
+                case "count":
+                    generator.count(Long.parseLong(value.replace("_", "")));
+                    break;
+                case "overlap":
+                    generator.overlap(Double.parseDouble(value));
+                    break;
+                case "adjacency":
+                    generator.adjacency(Double.parseDouble(value));
+                    break;
+                case "order":
+                    generator.order(Order.valueOf(value.toUpperCase(Locale.ROOT)));
+                    break;
+                case "malformed":
+                    generator.malformed(Double.parseDouble(value));
+                    break;
+                case "width":
+                    generator.width(Integer.parseInt(value));
+                    break;
+                case "per-line":
+                    generator.perLine(Integer.parseInt(value));
+                    break;
+                case "seed":
+                    generator.seed(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        if (output == null) {
+            throw new IllegalArgumentException("Output file is required");
+        }
+
+        long start = System.nanoTime();
+        long bytes;
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 20)) {
+            bytes = generator.generate(out);
+        }
+
+        LOG.info("Wrote " + generator.count + " ranges (" + bytes + " bytes) to " + output
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,263 @@
+package com.williamssonoma.ziprange;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>Load test command. Runs {@link ZipRange#parseRanges(String[])} and
+ * {@link ZipRange#consolidate(Iterable)} end to end over the given arguments
+ * and reports, for each phase, throughput in ranges and megabytes per second,
+ * peak heap usage and garbage collections.</p>
+ *
+ * <p>Peak heap is the sum of the peak usage of each heap memory pool during
+ * the phase, which may overstate the true simultaneous peak. Collection time
+ * is as reported by the JVM's collectors and includes concurrent cycles for
+ * collectors that have them.</p>
+ *
+ * <p>Usage (arguments as for {@link ZipRange#main(String[])}, e.g. files
+ * written by {@link ZipRangeGenerator}):</p>
+ *
+ * <pre>
+ * java -cp ziprange.jar com.williamssonoma.ziprange.ZipRangeLoadTester
+ *     [--warmup=0] [--iterations=1] [args...]
+ * </pre>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeLoadTester {
+    private static final double MB = 1024 * 1024;
+
+    /**
+     * Measurements for one phase of one iteration.
+     */
+    public static class Phase {
+        private final String name;
+        private final long ranges;
+        private final long bytes;
+        private final long nanos;
+        private final long peakHeap;
+        private final long collections;
+        private final long collectionMillis;
+
+        Phase(String name, long ranges, long bytes, long nanos, long peakHeap, long collections, long collectionMillis) {
+            this.name = name;
+            this.ranges = ranges;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.peakHeap = peakHeap;
+            this.collections = collections;
+            this.collectionMillis = collectionMillis;
+        }
+
+        /**
+         * @return Phase name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return Number of ranges processed
+         */
+        public long getRanges() {
+            return this.ranges;
+        }
+
+        /**
+         * @return Elapsed time in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return Ranges processed per second
+         */
+        public double getRangesPerSecond() {
+            return this.ranges / seconds();
+        }
+
+        /**
+         * @return Input megabytes processed per second
+         */
+        public double getMegabytesPerSecond() {
+            return this.bytes / MB / seconds();
+        }
+
+        /**
+         * @return Peak heap usage in bytes
+         */
+        public long getPeakHeap() {
+            return this.peakHeap;
+        }
+
+        /**
+         * @return Number of garbage collections
+         */
+        public long getCollections() {
+            return this.collections;
+        }
+
+        /**
+         * @return Garbage collection time in milliseconds
+         */
+        public long getCollectionMillis() {
+            return this.collectionMillis;
+        }
+
+        private double seconds() {
+            return Math.max(this.nanos, 1) / 1e9;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return String.format("%-12s %14d %10.3f %14.0f %10.1f %12.1f %8d %8d",
+                    this.name, this.ranges, seconds(), getRangesPerSecond(), getMegabytesPerSecond(),
+                    this.peakHeap / MB, this.collections, this.collectionMillis);
+        }
+    }
+
+    /**
+     * Column headings matching {@link Phase#toString()}.
+     */
+    public static final String HEADER = String.format("%-12s %14s %10s %14s %10s %12s %8s %8s",
+            "phase", "ranges", "seconds", "ranges/s", "MB/s", "peak heap MB", "gc count", "gc ms");
+
+    /**
+     * Run one iteration of parsing and consolidation.
+     *
+     * @param args Zip code ranges and/or files, as for {@link ZipRange#main(String[])}
+     * @return Parse and consolidate phase measurements
+     */
+    public static List<Phase> run(String[] args) {
+        long bytes = inputBytes(args);
+        List<Phase> phases = new ArrayList<>(2);
+
+        List<ZipRange> parsed = measure("parse", bytes, phases,
+                () -> ZipRange.parseRanges(args), List::size);
+
+        measure("consolidate", bytes, phases,
+                () -> ZipRange.consolidate(parsed), consolidated -> parsed.size());
+
+        return phases;
+    }
+
+    /**
+     * Run the given phase and record its measurements.
+     *
+     * @param name Phase name
+     * @param bytes Input size
+     * @param phases Phase measurements to add to
+     * @param phase Phase to run
+     * @param ranges Number of ranges processed by the phase
+     * @return Phase result
+     */
+    private static <T> T measure(String name, long bytes, List<Phase> phases, Supplier<T> phase,
+            ToLongFunction<T> ranges) {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                pools.add(pool);
+            }
+        }
+
+        long collections = collections();
+        long collectionMillis = collectionMillis();
+        long start = System.nanoTime();
+
+        T result = phase.get();
+
+        long nanos = System.nanoTime() - start;
+        long peakHeap = 0;
+
+        for (MemoryPoolMXBean pool : pools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        phases.add(new Phase(name, ranges.applyAsLong(result), bytes, nanos, peakHeap,
+                collections() - collections, collectionMillis() - collectionMillis));
+
+        return result;
+    }
+
+    private static long collections() {
+        long count = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+
+        return count;
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+
+        return millis;
+    }
+
+    /**
+     * @param args Zip code ranges and/or files
+     * @return Total size of files and inline range arguments in bytes
+     */
+    private static long inputBytes(String[] args) {
+        long bytes = 0;
+
+        for (String arg : args) {
+            File file = new File(arg);
+
+            bytes += file.exists() ? file.length() : arg.length();
+        }
+
+        return bytes;
+    }
+
+    public static void main(String[] args) {
+        int warmup = 0;
+        int iterations = 1;
+        List<String> ranges = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            }
+            else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            }
+            else {
+                ranges.add(arg);
+            }
+        }
+
+        String[] input = ranges.toArray(new String[0]);
+
+        for (int i = 0; i < warmup; i++) {
+            run(input);
+        }
+
+        System.out.println(HEADER);
+
+        for (int i = 0; i < iterations; i++) {
+            for (Phase phase : run(input)) {
+                System.out.println(phase);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.williamssonoma.ziprange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * <p>Byte-level zip code range parser. Splits text into whitespace delimited
+ * tokens and parses each as a zip code range (e.g. [00012,95632]).</p>
+ *
+ * <p>Well-formed 13 byte tokens take a fast path: the ten digits are loaded
+ * as two 8 byte words, validated with SIMD-within-a-register (SWAR) mask
+ * arithmetic and decoded with three multiply-adds per zip code rather than
+ * byte at a time. Any other token falls back to the scalar
+ * {@link ZipRange#parseRange(String) regular expression parser}, so results
+ * are identical to it.</p>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeParser {
+    /**
+     * Length of a well-formed token, e.g. "[12345,23456]".
+     */
+    static final int TOKEN_LENGTH = 13;
+
+    /**
+     * Largest region of a file mapped at a time.
+     */
+    static final int MAX_MAPPING = 1 << 30;
+
+    private static final long ZEROS = 0x3030303030303030L;
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+    private static final long SIXES = 0x0606060606060606L;
+    private static final long THREES = 0x3333333333333333L;
+
+    /**
+     * Five-digit field of a word shifted into the low lanes.
+     */
+    private static final long FIELD = 0xFF_FFFF_FFFFL;
+
+    /**
+     * ASCII "000" in the low three lanes, padding five digits to eight.
+     */
+    private static final long PADDING = 0x303030L;
+
+    private ZipRangeParser() {
+    }
+
+    /**
+     * Parse the zip code ranges in a file.
+     *
+     * @param file File of whitespace delimited zip code ranges
+     * @param ranges Receives each parsed range in file order
+     * @throws IOException If unable to read
+     */
+    public static void parse(Path file, Consumer<? super ZipRange> ranges) throws IOException {
+        parse(file, ranges, MAX_MAPPING);
+    }
+
+    /**
+     * Parse the zip code ranges in a file, mapping at most the given number of
+     * bytes at a time.
+     */
+    static void parse(Path file, Consumer<? super ZipRange> ranges, int maxMapping) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            for (long start = 0; start < size;) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(maxMapping, size - start));
+
+                int end = buffer.limit();
+
+                // end the region after the last whitespace so no token is split
+                if (start + end < size) {
+                    while (end > 0 && !whitespace(buffer.get(end - 1))) {
+                        end--;
+                    }
+
+                    if (end == 0) {
+                        end = buffer.limit();
+                    }
+
+                    buffer.limit(end);
+                }
+
+                parse(buffer, ranges);
+
+                start += end;
+            }
+        }
+    }
+
+    /**
+     * Parse the zip code ranges in text.
+     *
+     * @param text Whitespace delimited zip code ranges
+     * @param ranges Receives each parsed range in text order
+     */
+    public static void parse(String text, Consumer<? super ZipRange> ranges) {
+        parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), ranges);
+    }
+
+    /**
+     * Parse the zip code ranges between the buffer's position and limit.
+     *
+     * @param buffer Whitespace delimited zip code ranges; position is not
+     *        changed
+     * @param ranges Receives each parsed range in buffer order
+     */
+    public static void parse(ByteBuffer buffer, Consumer<? super ZipRange> ranges) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int limit = in.limit();
+
+        for (int i = in.position(); i < limit;) {
+            while (i < limit && whitespace(in.get(i))) {
+                i++;
+            }
+
+            int start = i;
+
+            while (i < limit && !whitespace(in.get(i))) {
+                i++;
+            }
+
+            if (i > start) {
+                ZipRange range = parseToken(in, start, i - start);
+
+                if (range != null) {
+                    ranges.accept(range);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse a token, using the fast path if well-formed.
+     *
+     * @param in Little-endian buffer
+     * @param start Token offset
+     * @param length Token length
+     * @return Zip code range or {@code null} if not parseable
+     */
+    private static ZipRange parseToken(ByteBuffer in, int start, int length) {
+        if (length == TOKEN_LENGTH
+                && in.get(start) == '['
+                && in.get(start + 6) == ','
+                && in.get(start + 12) == ']') {
+            // "[ddddd,d" and "d,ddddd]"
+            long a = ((in.getLong(start) >>> 8 & FIELD) << 24) | PADDING;
+            long b = ((in.getLong(start + 5) >>> 16 & FIELD) << 24) | PADDING;
+
+            if (eightDigits(a) && eightDigits(b)) {
+                return new ZipRange(
+                        ZipCode.valueOf(decode(a)),
+                        ZipCode.valueOf(decode(b)));
+            }
+        }
+
+        byte[] token = new byte[length];
+
+        for (int j = 0; j < length; j++) {
+            token[j] = in.get(start + j);
+        }
+
+        return ZipRange.parseRange(new String(token, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param word Eight ASCII bytes
+     * @return {@code true} if every byte is an ASCII digit
+     */
+    static boolean eightDigits(long word) {
+        // digits are 0x30-0x39: high nibble 3 both before and after adding 6
+        return ((word & HIGH_NIBBLES) | ((word + SIXES & HIGH_NIBBLES) >>> 4)) == THREES;
+    }
+
+    /**
+     * @param word Eight ASCII digits, most significant in the lowest lane
+     * @return Decimal value
+     */
+    static int decode(long word) {
+        long value = word - ZEROS;
+
+        // pairs, then quads, then all eight digits
+        value = value * 10 + (value >>> 8);
+        value = ((value & 0x000000FF000000FFL) * (100 + (1000000L << 32))
+                + (value >>> 16 & 0x000000FF000000FFL) * (1 + (10000L << 32))) >>> 32;
+
+        return (int) value;
+    }
+
+    /**
+     * @param b Byte
+     * @return {@code true} if a whitespace character as matched by regular
+     *         expression {@code \s}
+     */
+    private static boolean whitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+}
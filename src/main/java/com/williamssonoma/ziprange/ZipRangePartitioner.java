@@ -0,0 +1,435 @@
+package com.williamssonoma.ziprange;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>Partitioned consolidation across local worker processes.</p>
+ *
+ * <p>The zip code space is split into shards of equal width; with 10 or 100
+ * shards these are the 1 or 2 digit zip code prefixes. Ranges are parsed and
+ * routed to shards as they are read, with any range crossing a shard
+ * boundary split at the boundary, and sent in batches over loopback sockets
+ * to {@link ZipRangeShardWorker} processes. Workers are started with a random
+ * token and must present it on connecting; any other connection is closed.
+ * Each shard is consolidated
+ * independently by one worker. The shard results are then stitched together
+ * in shard order, re-merging ranges adjacent across a boundary, so the
+ * result is exactly that of {@link ZipRange#consolidate(Iterable)}.</p>
+ *
+ * <p>Usage (arguments as for {@link ZipRange#main(String[])}):</p>
+ *
+ * <pre>
+ * java -cp ziprange.jar com.williamssonoma.ziprange.ZipRangePartitioner
+ *     [--shards=10] [--workers=N] [args...]
+ * </pre>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangePartitioner {
+    private static final Logger LOG = LogManager.getLogger(ZipRangePartitioner.class);
+
+    /**
+     * Number of ranges sent to a worker at a time.
+     */
+    static final int BATCH_SIZE = 8192;
+
+    /**
+     * Number of ranges a shard's batch buffer first holds.
+     */
+    private static final int INITIAL_BATCH_SIZE = 16;
+
+    /**
+     * Time allowed for workers to start and connect.
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final int shards;
+    private final int workers;
+
+    /**
+     * Create a partitioned consolidation.
+     *
+     * @param shards Number of shards
+     * @param workers Number of worker processes
+     * @throws IllegalArgumentException If shards is not between 1 and the
+     *         number of zip codes, or workers is not between 1 and shards
+     */
+    public ZipRangePartitioner(int shards, int workers) {
+        if (shards < 1 || shards > ZipCode.COUNT) {
+            throw new IllegalArgumentException("Shards must be between 1 and " + ZipCode.COUNT + ": " + shards);
+        }
+
+        if (workers < 1 || workers > shards) {
+            throw new IllegalArgumentException("Workers must be between 1 and " + shards + ": " + workers);
+        }
+
+        this.shards = shards;
+        this.workers = workers;
+    }
+
+    /**
+     * @param shard Shard number
+     * @return Lowest zip code value in the shard, or the number of zip codes
+     *         for the shard after the last
+     */
+    int start(int shard) {
+        return (int) ((long) shard * ZipCode.COUNT / this.shards);
+    }
+
+    /**
+     * @param code Zip code value
+     * @return Shard containing the zip code value
+     */
+    int shardOf(int code) {
+        return (int) ((((long) code + 1) * this.shards - 1) / ZipCode.COUNT);
+    }
+
+    /**
+     * Split a range at shard boundaries.
+     *
+     * @param range Zip code range
+     * @param shard Receives the shard number and lowest and highest zip code
+     *        values of each part
+     */
+    void split(ZipRange range, ShardConsumer shard) {
+        int low = range.getLow().intValue();
+        int high = range.getHigh().intValue();
+
+        for (int s = shardOf(low);; s++) {
+            int end = Math.min(high, start(s + 1) - 1);
+
+            shard.accept(s, low, end);
+
+            if (end == high) {
+                return;
+            }
+
+            low = end + 1;
+        }
+    }
+
+    /**
+     * Receives a range routed to a shard.
+     */
+    interface ShardConsumer {
+        void accept(int shard, int low, int high);
+    }
+
+    /**
+     * Parse and consolidate the given arguments across worker processes.
+     *
+     * @param args Zip code ranges and/or files, as for {@link ZipRange#main(String[])}
+     * @return Consolidated ranges
+     * @throws IOException If unable to read a file argument, or a worker fails
+     *         to start, connect or reply; no partial result is returned
+     */
+    public ZipRangeSet consolidate(String[] args) throws IOException {
+        long start = System.nanoTime();
+        long token = new SecureRandom().nextLong();
+        List<Process> processes = new ArrayList<>(this.workers);
+        List<Socket> sockets = new ArrayList<>(this.workers);
+
+        try (ServerSocket server = new ServerSocket(0, this.workers, InetAddress.getLoopbackAddress())) {
+            for (int w = 0; w < this.workers; w++) {
+                processes.add(new ProcessBuilder(
+                        Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"),
+                        ZipRangeShardWorker.class.getName(),
+                        String.valueOf(server.getLocalPort()),
+                        String.valueOf(token))
+                        .inheritIO()
+                        .start());
+            }
+
+            DataOutputStream[] outs = new DataOutputStream[this.workers];
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS);
+
+            for (int w = 0; w < this.workers;) {
+                Socket socket = accept(server, token, deadline);
+
+                if (socket != null) {
+                    sockets.add(socket);
+                    outs[w++] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                }
+            }
+
+            Router router = new Router(outs);
+
+            try {
+                for (String arg : args) {
+                    ZipRange.parseArgument(arg, router);
+                }
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            router.finish();
+
+            int[][] results = new int[this.shards][];
+
+            for (Socket socket : sockets) {
+                readResults(new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16)), results);
+            }
+
+            ZipRangeSet consolidated = stitch(results);
+
+            LOG.debug("Consolidated " + router.routed + " ranges in " + this.shards + " shards across "
+                    + this.workers + " workers in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            return consolidated;
+        }
+        finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+
+            for (Process process : processes) {
+                try {
+                    if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                    else if (process.exitValue() != 0) {
+                        LOG.warn("Worker exited with " + process.exitValue());
+                    }
+                }
+                catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Accept a connection, keeping it only if it presents the workers' token.
+     *
+     * @param server Coordinator socket
+     * @param token Token the workers were started with
+     * @param deadline {@link System#nanoTime()} by which every worker must
+     *        connect
+     * @return Worker connection, or {@code null} if the connection was closed
+     * @throws IOException If no connection is accepted before the deadline
+     */
+    static Socket accept(ServerSocket server, long token, long deadline) throws IOException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Workers did not connect within " + CONNECT_TIMEOUT_MILLIS + " ms");
+        }
+
+        server.setSoTimeout((int) remaining);
+
+        Socket socket = server.accept();
+
+        try {
+            socket.setSoTimeout((int) remaining);
+
+            if (new DataInputStream(socket.getInputStream()).readLong() == token) {
+                socket.setSoTimeout(0);
+
+                return socket;
+            }
+
+            LOG.warn("Closing connection from " + socket.getRemoteSocketAddress() + " with an invalid token");
+        }
+        catch (IOException e) {
+            LOG.warn("Closing connection from " + socket.getRemoteSocketAddress() + " without a token", e);
+        }
+
+        socket.close();
+
+        return null;
+    }
+
+    /**
+     * Routes parsed ranges to shard batches and sends full batches to the
+     * worker owning the shard.
+     */
+    private class Router implements Consumer<ZipRange> {
+        private final DataOutputStream[] outs;
+        private final int[][] batches = new int[shards][];
+        private final int[] counts = new int[shards];
+        private long routed;
+
+        Router(DataOutputStream[] outs) {
+            this.outs = outs;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.function.Consumer#accept(java.lang.Object)
+         */
+        @Override
+        public void accept(ZipRange range) {
+            this.routed++;
+
+            split(range, (shard, low, high) -> {
+                int[] batch = this.batches[shard];
+
+                // grown on demand, as a wide range touches every shard
+                if (batch == null) {
+                    batch = this.batches[shard] = new int[2 * INITIAL_BATCH_SIZE];
+                }
+                else if (batch.length == 2 * this.counts[shard]) {
+                    batch = this.batches[shard] = Arrays.copyOf(batch, 2 * batch.length);
+                }
+
+                batch[2 * this.counts[shard]] = low;
+                batch[2 * this.counts[shard] + 1] = high;
+
+                if (++this.counts[shard] == BATCH_SIZE) {
+                    send(shard);
+                }
+            });
+        }
+
+        /**
+         * Send a shard's batch to its worker.
+         *
+         * @param shard Shard number
+         * @throws UncheckedIOException If unable to write
+         */
+        private void send(int shard) {
+            DataOutputStream out = this.outs[shard % this.outs.length];
+            int[] batch = this.batches[shard];
+
+            try {
+                out.writeInt(shard);
+                out.writeInt(this.counts[shard]);
+
+                for (int i = 0; i < 2 * this.counts[shard]; i++) {
+                    out.writeInt(batch[i]);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Unable to send shard " + shard, e);
+            }
+
+            this.counts[shard] = 0;
+        }
+
+        /**
+         * Send remaining batches and end every worker's input.
+         *
+         * @throws IOException If unable to write
+         */
+        void finish() throws IOException {
+            try {
+                for (int shard = 0; shard < shards; shard++) {
+                    if (this.counts[shard] > 0) {
+                        send(shard);
+                    }
+                }
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            for (DataOutputStream out : this.outs) {
+                out.writeInt(ZipRangeShardWorker.END);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Read a worker's consolidated shards.
+     *
+     * @param in Worker results
+     * @param results Consolidated lowest/highest pairs by shard
+     * @throws IOException If unable to read
+     */
+    private static void readResults(DataInputStream in, int[][] results) throws IOException {
+        for (int n = in.readInt(); n > 0; n--) {
+            int shard = in.readInt();
+            int[] pairs = new int[2 * in.readInt()];
+
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = in.readInt();
+            }
+
+            results[shard] = pairs;
+        }
+    }
+
+    /**
+     * Concatenate consolidated shards in order, merging ranges adjacent across
+     * a shard boundary.
+     *
+     * @param results Consolidated lowest/highest pairs by shard; {@code null}
+     *        for an empty shard
+     * @return Consolidated ranges
+     */
+    static ZipRangeSet stitch(int[][] results) {
+        int total = 0;
+
+        for (int[] pairs : results) {
+            total += pairs == null ? 0 : pairs.length / 2;
+        }
+
+        int[] lows = new int[total];
+        int[] highs = new int[total];
+        int n = 0;
+
+        for (int[] pairs : results) {
+            for (int i = 0; pairs != null && i < pairs.length; i += 2) {
+                // shards are disjoint, so only adjacency can span a boundary
+                if (n > 0 && highs[n - 1] + 1 == pairs[i]) {
+                    highs[n - 1] = pairs[i + 1];
+                }
+                else {
+                    lows[n] = pairs[i];
+                    highs[n] = pairs[i + 1];
+                    n++;
+                }
+            }
+        }
+
+        return new ZipRangeSet(Arrays.copyOf(lows, n), Arrays.copyOf(highs, n));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int shards = 10;
+        int workers = -1;
+        List<String> ranges = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--shards=")) {
+                shards = Integer.parseInt(arg.substring("--shards=".length()));
+            }
+            else if (arg.startsWith("--workers=")) {
+                workers = Integer.parseInt(arg.substring("--workers=".length()));
+            }
+            else {
+                ranges.add(arg);
+            }
+        }
+
+        if (workers < 0) {
+            workers = Math.min(shards, Runtime.getRuntime().availableProcessors());
+        }
+
+        System.out.println(new ZipRangePartitioner(shards, workers)
+                .consolidate(ranges.toArray(new String[0])));
+    }
+}
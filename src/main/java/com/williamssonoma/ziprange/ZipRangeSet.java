@@ -0,0 +1,397 @@
+package com.williamssonoma.ziprange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Immutable {@link ZipRange#consolidate(Iterable) consolidated} set of zip
+ * code ranges supporting nearest covered zip code and uncovered gap
+ * queries.</p>
+ *
+ * <p>Ranges are held in two sorted primitive arrays of lowest and highest zip
+ * code values. Point queries are binary searches costing O(log n); the
+ * package-private {@code int} variants, for zip code values 0 to 99999 only,
+ * allocate nothing. The largest k gaps are found in O(n log k) with a
+ * primitive heap.</p>
+ *
+ * <p>A gap is a maximal range of zip codes not covered by the set, including
+ * any gap before the first range or after the last.</p>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeSet {
+    private final int[] lows;
+    private final int[] highs;
+
+    /**
+     * Create a set of the given ranges, consolidating them.
+     *
+     * @param ranges Zip code ranges; need not be consolidated
+     */
+    public ZipRangeSet(Iterable<ZipRange> ranges) {
+        Set<ZipRange> consolidated = ZipRange.consolidate(ranges);
+
+        this.lows = new int[consolidated.size()];
+        this.highs = new int[consolidated.size()];
+
+        int i = 0;
+
+        for (ZipRange range : consolidated) {
+            this.lows[i] = range.getLow().intValue();
+            this.highs[i] = range.getHigh().intValue();
+            i++;
+        }
+    }
+
+    /**
+     * Create a set of already consolidated ranges.
+     *
+     * @param lows Ascending lowest zip code values
+     * @param highs Highest zip code values; each range disjoint from and not
+     *        adjacent to the next
+     */
+    ZipRangeSet(int[] lows, int[] highs) {
+        this.lows = lows;
+        this.highs = highs;
+    }
+
+    /**
+     * Merge already consolidated sets with a k-way merge in O(n log k), where
+     * n is the total number of ranges and k the number of sets.
+     *
+     * @param sets Zip code range sets
+     * @return Union of the given sets
+     */
+    public static ZipRangeSet union(Collection<ZipRangeSet> sets) {
+        ZipRangeSet[] sources = sets.toArray(new ZipRangeSet[0]);
+        int total = 0;
+
+        for (ZipRangeSet source : sources) {
+            total += source.size();
+        }
+
+        int[] lows = new int[total];
+        int[] highs = new int[total];
+        int n = 0;
+
+        // min-heap of source indices by lowest zip code of the next range
+        int[] next = new int[sources.length];
+        int[] heap = new int[sources.length];
+        int size = 0;
+        Rank rank = (a, b) -> sources[a].lows[next[a]] < sources[b].lows[next[b]];
+
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].size() > 0) {
+                heap[size] = i;
+                siftUp(heap, size++, rank);
+            }
+        }
+
+        while (size > 0) {
+            int i = heap[0];
+            int low = sources[i].lows[next[i]];
+            int high = sources[i].highs[next[i]];
+
+            if (++next[i] == sources[i].size()) {
+                heap[0] = heap[--size];
+            }
+
+            siftDown(heap, size, rank);
+
+            // intersecting or adjacent to the previous merged range
+            if (n > 0 && low <= highs[n - 1] + 1) {
+                highs[n - 1] = Math.max(highs[n - 1], high);
+            }
+            else {
+                lows[n] = low;
+                highs[n] = high;
+                n++;
+            }
+        }
+
+        return new ZipRangeSet(Arrays.copyOf(lows, n), Arrays.copyOf(highs, n));
+    }
+
+    /**
+     * @return Number of disjoint ranges
+     */
+    public int size() {
+        return this.lows.length;
+    }
+
+    /**
+     * @param i Range index
+     * @return Lowest zip code value of the i-th range in ascending order
+     */
+    int low(int i) {
+        return this.lows[i];
+    }
+
+    /**
+     * @param i Range index
+     * @return Highest zip code value of the i-th range in ascending order
+     */
+    int high(int i) {
+        return this.highs[i];
+    }
+
+    /**
+     * @param code Zip code value
+     * @return {@code true} if the zip code is covered by the set
+     */
+    public boolean contains(int code) {
+        int i = rangeIndex(code);
+
+        return i >= 0 && this.highs[i] >= code;
+    }
+
+    /**
+     * @param code Zip code
+     * @return Lowest covered zip code greater than or equal to the given zip
+     *         code, or {@code null} if none
+     * @throws NullPointerException If argument is {@code null}
+     */
+    public ZipCode ceiling(ZipCode code) {
+        int ceiling = ceiling(code.intValue());
+
+        return ceiling < 0 ? null : ZipCode.valueOf(ceiling);
+    }
+
+    /**
+     * @param code Zip code value
+     * @return Lowest covered zip code value greater than or equal to the given
+     *         value, or -1 if none
+     */
+    int ceiling(int code) {
+        int i = rangeIndex(code);
+
+        if (i >= 0 && this.highs[i] >= code) {
+            return code;
+        }
+
+        return i + 1 < this.lows.length ? this.lows[i + 1] : -1;
+    }
+
+    /**
+     * @param code Zip code
+     * @return Highest covered zip code less than or equal to the given zip
+     *         code, or {@code null} if none
+     * @throws NullPointerException If argument is {@code null}
+     */
+    public ZipCode floor(ZipCode code) {
+        int floor = floor(code.intValue());
+
+        return floor < 0 ? null : ZipCode.valueOf(floor);
+    }
+
+    /**
+     * @param code Zip code value
+     * @return Highest covered zip code value less than or equal to the given
+     *         value, or -1 if none
+     */
+    int floor(int code) {
+        int i = rangeIndex(code);
+
+        return i < 0 ? -1 : Math.min(code, this.highs[i]);
+    }
+
+    /**
+     * @param code Zip code
+     * @return Gap containing the given zip code if not covered, otherwise the
+     *         gap following the range containing it, or {@code null} if none
+     * @throws NullPointerException If argument is {@code null}
+     */
+    public ZipRange nextGap(ZipCode code) {
+        long gap = nextGap(code.intValue());
+
+        return gap < 0 ? null : new ZipRange(
+                ZipCode.valueOf(gapLow(gap)),
+                ZipCode.valueOf(gapHigh(gap)));
+    }
+
+    /**
+     * @param code Zip code value
+     * @return Gap containing the given zip code value if not covered,
+     *         otherwise the gap following the range containing it, packed as
+     *         {@code (low << 32) | high}, or -1 if none
+     * @see #gapLow(long)
+     * @see #gapHigh(long)
+     */
+    long nextGap(int code) {
+        // the gap before range i + 1 either contains the code or follows range i
+        return gap(rangeIndex(code) + 1);
+    }
+
+    /**
+     * @param gap Packed gap
+     * @return Lowest zip code value in the gap
+     */
+    static int gapLow(long gap) {
+        return (int) (gap >>> 32);
+    }
+
+    /**
+     * @param gap Packed gap
+     * @return Highest zip code value in the gap
+     */
+    static int gapHigh(long gap) {
+        return (int) gap;
+    }
+
+    /**
+     * @param k Number of gaps
+     * @return Up to k largest gaps, largest first; gaps of equal size in
+     *         ascending order
+     * @throws IllegalArgumentException If k is negative
+     */
+    public List<ZipRange> topKGaps(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+
+        // min-heap of gap indices; root is the smallest gap retained
+        int[] heap = new int[Math.min(k, this.lows.length + 1)];
+        int size = 0;
+
+        for (int g = 0; g <= this.lows.length && heap.length > 0; g++) {
+            if (gap(g) < 0) {
+                continue;
+            }
+
+            if (size < heap.length) {
+                heap[size] = g;
+                siftUp(heap, size++, this::smaller);
+            }
+            else if (smaller(heap[0], g)) {
+                heap[0] = g;
+                siftDown(heap, size, this::smaller);
+            }
+        }
+
+        // pop smallest first into the end of the result
+        ZipRange[] gaps = new ZipRange[size];
+
+        while (size > 0) {
+            long gap = gap(heap[0]);
+
+            gaps[--size] = new ZipRange(ZipCode.valueOf(gapLow(gap)), ZipCode.valueOf(gapHigh(gap)));
+
+            heap[0] = heap[size];
+            siftDown(heap, size, this::smaller);
+        }
+
+        return new ArrayList<>(Arrays.asList(gaps));
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder ranges = new StringBuilder(this.lows.length * 14);
+
+        for (int i = 0; i < this.lows.length; i++) {
+            if (i > 0) {
+                ranges.append(' ');
+            }
+
+            ranges.append(String.format("[%05d,%05d]", this.lows[i], this.highs[i]));
+        }
+
+        return ranges.toString();
+    }
+
+    /**
+     * @param code Zip code value
+     * @return Index of the last range whose lowest zip code is less than or
+     *         equal to the given value, or -1 if none
+     */
+    private int rangeIndex(int code) {
+        int i = Arrays.binarySearch(this.lows, code);
+
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * @param g Gap index; gap g precedes range g
+     * @return Packed gap, or -1 if empty
+     */
+    private long gap(int g) {
+        int low = g == 0 ? 0 : this.highs[g - 1] + 1;
+        int high = g == this.lows.length ? ZipCode.COUNT - 1 : this.lows[g] - 1;
+
+        return low > high ? -1 : (long) low << 32 | high;
+    }
+
+    private int gapSize(int g) {
+        long gap = gap(g);
+
+        return gapHigh(gap) - gapLow(gap) + 1;
+    }
+
+    /**
+     * @return {@code true} if gap a ranks below gap b; smaller, or the same
+     *         size and higher
+     */
+    private boolean smaller(int a, int b) {
+        int comparison = gapSize(a) - gapSize(b);
+
+        return comparison < 0 || comparison == 0 && a > b;
+    }
+
+    /**
+     * Heap ordering of indices.
+     */
+    private interface Rank {
+        /**
+         * @return {@code true} if index a belongs above index b in a min-heap
+         */
+        boolean below(int a, int b);
+    }
+
+    private static void siftUp(int[] heap, int i, Rank rank) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (!rank.below(heap[i], heap[parent])) {
+                return;
+            }
+
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, Rank rank) {
+        for (int i = 0;;) {
+            int least = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+
+            if (left < size && rank.below(heap[left], heap[least])) {
+                least = left;
+            }
+
+            if (right < size && rank.below(heap[right], heap[least])) {
+                least = right;
+            }
+
+            if (least == i) {
+                return;
+            }
+
+            swap(heap, i, least);
+            i = least;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+}
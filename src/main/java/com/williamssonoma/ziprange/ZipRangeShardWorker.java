@@ -0,0 +1,103 @@
+package com.williamssonoma.ziprange;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>Shard worker process for {@link ZipRangePartitioner}. Connects to the
+ * coordinator on the loopback interface, presents the token it was started
+ * with, consolidates the shards it is sent and replies with each shard's
+ * consolidated ranges.</p>
+ *
+ * <p>The coordinator sends batches of ranges as frames of a shard number, a
+ * range count and that many lowest/highest zip code value pairs, ending with
+ * a shard number of -1. Each batch is consolidated on arrival and merged into
+ * its shard's running set, so worker memory is bounded by one batch plus the
+ * consolidated output. The worker replies with a shard count followed by a
+ * frame per shard.</p>
+ *
+ * @author Craig Gilmore
+ */
+public class ZipRangeShardWorker {
+    private static final Logger LOG = LogManager.getLogger(ZipRangeShardWorker.class);
+
+    /**
+     * Shard number ending the coordinator's frames.
+     */
+    static final int END = -1;
+
+    /**
+     * Consolidate the shards read from the given stream and write the results.
+     *
+     * @param input Frames from the coordinator
+     * @param output Results to the coordinator
+     * @throws IOException If unable to read or write
+     */
+    static void serve(InputStream input, OutputStream output) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, 1 << 16));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        Map<Integer, ZipRangeSet> shards = new TreeMap<>();
+
+        for (int shard; (shard = in.readInt()) != END;) {
+            int count = in.readInt();
+            List<ZipRange> batch = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                batch.add(new ZipRange(
+                        ZipCode.valueOf(in.readInt()),
+                        ZipCode.valueOf(in.readInt())));
+            }
+
+            shards.merge(shard, new ZipRangeSet(batch), (a, b) -> ZipRangeSet.union(Arrays.asList(a, b)));
+        }
+
+        out.writeInt(shards.size());
+
+        for (Map.Entry<Integer, ZipRangeSet> shard : shards.entrySet()) {
+            ZipRangeSet ranges = shard.getValue();
+
+            out.writeInt(shard.getKey());
+            out.writeInt(ranges.size());
+
+            for (int i = 0; i < ranges.size(); i++) {
+                out.writeInt(ranges.low(i));
+                out.writeInt(ranges.high(i));
+            }
+        }
+
+        out.flush();
+
+        LOG.debug("Consolidated shards " + shards.keySet());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Expected the coordinator port and token");
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+            // identifies this worker to the coordinator
+            out.writeLong(Long.parseLong(args[1]));
+            out.flush();
+
+            serve(socket.getInputStream(), socket.getOutputStream());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.williamssonoma.ziprange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipCodeLookupTest {
+    private static final List<ZipRange> RANGES = Arrays.asList(
+            new ZipRange(ZipCode.valueOf("00000"), ZipCode.valueOf("00063")),
+            new ZipRange(ZipCode.valueOf("00100"), ZipCode.valueOf("00100")),
+            new ZipRange(ZipCode.valueOf("12345"), ZipCode.valueOf("23456")),
+            new ZipRange(ZipCode.valueOf("99990"), ZipCode.valueOf("99999")));
+
+    @Test
+    public void testContains() {
+        ZipCodeLookup lookup = new ZipCodeLookup(RANGES);
+
+        for (int code = 0; code <= 99999; code++) {
+            boolean expected = false;
+
+            for (ZipRange range : RANGES) {
+                expected |= code >= range.getLow().intValue() && code <= range.getHigh().intValue();
+            }
+
+            Assert.assertEquals(expected, lookup.contains(ZipCode.valueOf(code)));
+        }
+    }
+
+    @Test
+    public void testFlag() throws IOException {
+        String output = classify("00063\n 00064 \r\n\n00100\nabcde\n1234\n99999", ZipCodeLookup.Mode.FLAG, 1, 1 << 20);
+
+        Assert.assertEquals("00063,1\n00064,0\n00100,1\n99999,1\n", output);
+    }
+
+    @Test
+    public void testFilter() throws IOException {
+        String output = classify("00063\n00064\n00100\n123456\n99999\n", ZipCodeLookup.Mode.FILTER, 1, 1 << 20);
+
+        Assert.assertEquals("00063\n00100\n99999\n", output);
+    }
+
+    @Test
+    public void testChunks() throws IOException {
+        Random random = new Random(1);
+        ZipCodeLookup lookup = new ZipCodeLookup(RANGES);
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            ZipCode code = ZipCode.valueOf(random.nextInt(100000));
+
+            input.append(code).append('\n');
+
+            if (lookup.contains(code)) {
+                expected.append(code).append('\n');
+            }
+        }
+
+        // small chunks split across many tasks must still be written in order
+        for (int chunkSize : new int[] { 1, 5, 6, 7, 1000 }) {
+            Assert.assertEquals(
+                    expected.toString(),
+                    classify(input.toString(), ZipCodeLookup.Mode.FILTER, 4, chunkSize));
+        }
+    }
+
+    private static String classify(String zips, ZipCodeLookup.Mode mode, int threads, int chunkSize)
+            throws IOException {
+        Path file = Files.createTempFile("zips", ".txt");
+
+        try {
+            Files.write(file, zips.getBytes(StandardCharsets.US_ASCII));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            new ZipCodeLookup(RANGES).classify(file, Channels.newChannel(out), mode, threads, chunkSize);
+
+            return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.williamssonoma.ziprange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeBatchTest {
+    @Test
+    public void testRun() throws IOException {
+        Path dir = Files.createTempDirectory("batch");
+
+        try {
+            Path a = write(dir.resolve("a.txt"), "[00000,00010] [00020,00030]\n[50000,60000]");
+            Path b = write(dir.resolve("b.txt"), "[00011,00019]\n[55000,70000]");
+            Path c = write(dir.resolve("c.txt"), "[90000,99999]");
+
+            Path manifest = write(dir.resolve("manifest.txt"), String.join("\n",
+                    "# name output arguments",
+                    "",
+                    "ab " + dir.resolve("out/ab.txt") + " " + a + " " + b,
+                    "ac " + dir.resolve("out/ac.txt") + " " + a + " " + c + " [80000,89999]",
+                    "empty " + dir.resolve("out/empty.txt")));
+
+            List<ZipRangeBatch.Job> jobs = ZipRangeBatch.readManifest(manifest);
+
+            Assert.assertEquals(3, jobs.size());
+            Assert.assertEquals(Arrays.asList(a.toString(), b.toString()), jobs.get(0).getArgs());
+
+            Map<String, ZipRangeSet> results = ZipRangeBatch.run(jobs);
+
+            Assert.assertEquals(Arrays.asList("ab", "ac", "empty"), results.keySet().stream().collect(Collectors.toList()));
+
+            for (ZipRangeBatch.Job job : jobs) {
+                String expected = ZipRange.consolidate(ZipRange.parseRanges(job.getArgs().toArray(new String[0])))
+                        .stream()
+                        .map(Object::toString)
+                        .collect(Collectors.joining(" "));
+
+                Assert.assertEquals(expected, results.get(job.getName()).toString());
+                Assert.assertEquals(Collections.singletonList(expected), Files.readAllLines(job.getOutput()));
+            }
+
+            Assert.assertEquals("[00000,00030] [50000,70000]", results.get("ab").toString());
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testMissingSource() throws IOException {
+        Path dir = Files.createTempDirectory("batch");
+
+        try {
+            Path a = write(dir.resolve("a.txt"), "[00000,00010]");
+            Path manifest = write(dir.resolve("manifest.txt"), String.join("\n",
+                    "a " + dir.resolve("out/a.txt") + " " + a,
+                    "typo " + dir.resolve("out/typo.txt") + " " + a + " " + dir.resolve("b.txt")));
+
+            try {
+                ZipRangeBatch.run(ZipRangeBatch.readManifest(manifest));
+                Assert.fail("Expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e) {
+                // no job runs
+                Assert.assertFalse(Files.exists(dir.resolve("out")));
+            }
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnreadableSource() throws IOException {
+        Path dir = Files.createTempDirectory("batch");
+
+        try {
+            ZipRangeBatch.run(Collections.singletonList(
+                    new ZipRangeBatch.Job("a", dir.resolve("a.txt"), Collections.singletonList(dir.toString()))));
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateJob() throws IOException {
+        Path dir = Files.createTempDirectory("batch");
+
+        try {
+            ZipRangeBatch.readManifest(write(dir.resolve("manifest.txt"), "a out.txt\na out2.txt"));
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingOutput() throws IOException {
+        Path dir = Files.createTempDirectory("batch");
+
+        try {
+            ZipRangeBatch.readManifest(write(dir.resolve("manifest.txt"), "a"));
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    private static Path write(Path file, String text) throws IOException {
+        return Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+}
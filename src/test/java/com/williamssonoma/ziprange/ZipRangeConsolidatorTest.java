@@ -0,0 +1,253 @@
+package com.williamssonoma.ziprange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeConsolidatorTest {
+    @Test
+    public void testFinalSet() {
+        List<ZipRange> ranges = ZipRange.parseRanges(new String[] {
+                "[00001,00010] [00045,00055] [00011,00019] [00060,00090]",
+                "[00040,00050] [00020,00030] [00070,00080]" });
+
+        ListPublisher publisher = new ListPublisher(ranges);
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator(2, 0);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(consolidator);
+        consolidator.subscribe(subscriber);
+
+        Assert.assertEquals(Collections.singletonList(ZipRange.consolidate(ranges)), subscriber.items);
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testEmpty() {
+        ListPublisher publisher = new ListPublisher(Collections.emptyList());
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator();
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+
+        publisher.subscribe(consolidator);
+        consolidator.subscribe(subscriber);
+
+        Assert.assertEquals(Collections.singletonList(Collections.emptySet()), subscriber.items);
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testBatchedDemand() {
+        List<ZipRange> ranges = new ZipRangeGenerator().count(1000).seed(42).generate();
+
+        ListPublisher publisher = new ListPublisher(ranges);
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator(16, 0);
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+
+        publisher.subscribe(consolidator);
+        consolidator.subscribe(subscriber);
+
+        Assert.assertTrue(publisher.maxOutstanding <= 16);
+        Assert.assertEquals(Collections.singletonList(ZipRange.consolidate(ranges)), subscriber.items);
+    }
+
+    @Test
+    public void testDownstreamDemand() {
+        List<ZipRange> ranges = new ZipRangeGenerator().count(100).seed(7).generate();
+
+        ListPublisher publisher = new ListPublisher(ranges);
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator(8, 10);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+
+        consolidator.subscribe(subscriber);
+        publisher.subscribe(consolidator);
+
+        // nothing delivered without demand
+        Assert.assertTrue(subscriber.items.isEmpty());
+        Assert.assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+
+        Assert.assertEquals(Collections.singletonList(ZipRange.consolidate(ranges)), subscriber.items);
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testSnapshots() {
+        List<ZipRange> ranges = new ZipRangeGenerator().count(100).seed(11).generate();
+
+        ListPublisher publisher = new ListPublisher(ranges);
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator(8, 25);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+
+        consolidator.subscribe(subscriber);
+        publisher.subscribe(consolidator);
+
+        // four snapshots plus the final set
+        Assert.assertEquals(5, subscriber.items.size());
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(
+                    ZipRange.consolidate(ranges.subList(0, (i + 1) * 25)),
+                    subscriber.items.get(i));
+        }
+
+        Assert.assertEquals(ZipRange.consolidate(ranges), subscriber.items.get(4));
+    }
+
+    @Test
+    public void testSecondSubscriber() {
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator();
+        CollectingSubscriber first = new CollectingSubscriber(1);
+        boolean[] locked = new boolean[1];
+        CollectingSubscriber second = new CollectingSubscriber(1) {
+            @Override
+            public void onError(Throwable throwable) {
+                super.onError(throwable);
+
+                locked[0] = Thread.holdsLock(consolidator);
+            }
+        };
+
+        consolidator.subscribe(first);
+        consolidator.subscribe(second);
+
+        Assert.assertNull(first.error);
+        Assert.assertTrue(second.error instanceof IllegalStateException);
+
+        // rejection is signalled outside the processor's lock
+        Assert.assertFalse(locked[0]);
+    }
+
+    @Test
+    public void testAsynchronousPublisher() throws Exception {
+        List<ZipRange> ranges = new ZipRangeGenerator().count(10000).seed(3).generate();
+
+        ZipRangeConsolidator consolidator = new ZipRangeConsolidator(64, 0);
+        CompletableFuture<Set<ZipRange>> result = new CompletableFuture<>();
+
+        consolidator.subscribe(new Flow.Subscriber<Set<ZipRange>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Set<ZipRange> item) {
+                result.complete(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                // result already delivered
+            }
+        });
+
+        try (SubmissionPublisher<ZipRange> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(consolidator);
+
+            ranges.forEach(publisher::submit);
+        }
+
+        Assert.assertEquals(ZipRange.consolidate(ranges), result.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Synchronous publisher of a list, recording the largest outstanding
+     * demand.
+     */
+    private static class ListPublisher implements Flow.Publisher<ZipRange> {
+        private final List<ZipRange> ranges;
+        private long maxOutstanding;
+
+        ListPublisher(List<ZipRange> ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ZipRange> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int index;
+                private long outstanding;
+                private boolean emitting;
+
+                @Override
+                public void request(long n) {
+                    this.outstanding += n;
+                    maxOutstanding = Math.max(maxOutstanding, this.outstanding);
+
+                    if (this.emitting) {
+                        return;
+                    }
+
+                    this.emitting = true;
+
+                    while (this.outstanding > 0 && this.index < ranges.size()) {
+                        this.outstanding--;
+                        subscriber.onNext(ranges.get(this.index++));
+                    }
+
+                    this.emitting = false;
+
+                    if (this.index == ranges.size()) {
+                        this.index++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    this.index = ranges.size() + 1;
+                }
+            });
+        }
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<Set<ZipRange>> {
+        private final long initialDemand;
+        private final List<Set<ZipRange>> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        CollectingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+
+            if (this.initialDemand > 0) {
+                subscription.request(this.initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(Set<ZipRange> item) {
+            this.items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.williamssonoma.ziprange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeDepthTest {
+    @Test
+    public void testDepth() {
+        ZipRangeDepth depth = new ZipRangeDepth(ZipRange.parseRanges(new String[] {
+                "[00000,00010] [00005,00015] [00010,00010] [99990,99999]" }));
+
+        Assert.assertEquals(3, depth.getMaxDepth());
+        Assert.assertEquals(2, depth.depth(ZipCode.valueOf("00005")));
+        Assert.assertEquals(3, depth.depth(ZipCode.valueOf("00010")));
+        Assert.assertEquals(1, depth.depth(ZipCode.valueOf("00015")));
+        Assert.assertEquals(0, depth.depth(ZipCode.valueOf("00016")));
+        Assert.assertEquals(1, depth.depth(ZipCode.valueOf("99999")));
+
+        Assert.assertArrayEquals(new long[] { 99974, 20, 5, 1 }, depth.getHistogram());
+
+        Assert.assertEquals("[00000,00015] [99990,99999]", depth.atLeast(1).toString());
+        Assert.assertEquals("[00005,00010]", depth.atLeast(2).toString());
+        Assert.assertEquals("[00010,00010]", depth.atLeast(3).toString());
+        Assert.assertEquals("", depth.atLeast(4).toString());
+        Assert.assertEquals("[00000,99999]", depth.atLeast(0).toString());
+    }
+
+    @Test
+    public void testEmpty() {
+        ZipRangeDepth depth = new ZipRangeDepth(Collections.emptyList());
+
+        Assert.assertEquals(0, depth.getMaxDepth());
+        Assert.assertArrayEquals(new long[] { 100000 }, depth.getHistogram());
+        Assert.assertEquals("", depth.atLeast(1).toString());
+    }
+
+    @Test
+    public void testSparseAndDense() {
+        List<ZipRange> ranges = new ZipRangeGenerator().count(2000).width(5000).seed(17).generate();
+
+        int[] expected = new int[100000];
+
+        for (ZipRange r : ranges) {
+            for (int code = r.getLow().intValue(); code <= r.getHigh().intValue(); code++) {
+                expected[code]++;
+            }
+        }
+
+        // all sparse, switching to dense part way and all dense
+        for (int limit : new int[] { Integer.MAX_VALUE / 2, 1000, 0 }) {
+            ZipRangeDepth depth = new ZipRangeDepth(ranges, limit);
+            int max = Arrays.stream(expected).max().getAsInt();
+            long[] histogram = new long[max + 1];
+
+            for (int code = 0; code < expected.length; code++) {
+                Assert.assertEquals(expected[code], depth.depth(ZipCode.valueOf(code)));
+                histogram[expected[code]]++;
+            }
+
+            Assert.assertArrayEquals(histogram, depth.getHistogram());
+
+            for (int k = 1; k <= max; k += 3) {
+                List<String> covered = new ArrayList<>();
+
+                for (int code = 0; code < expected.length; code++) {
+                    if (expected[code] >= k && (code == 0 || expected[code - 1] < k)) {
+                        int high = code;
+
+                        while (high + 1 < expected.length && expected[high + 1] >= k) {
+                            high++;
+                        }
+
+                        covered.add(String.format("[%05d,%05d]", code, high));
+                    }
+                }
+
+                Assert.assertEquals(String.join(" ", covered), depth.atLeast(k).toString());
+            }
+
+            Assert.assertEquals(new ZipRangeSet(ranges).toString(), depth.atLeast(1).toString());
+        }
+    }
+}
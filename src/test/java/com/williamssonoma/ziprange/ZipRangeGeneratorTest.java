@@ -0,0 +1,119 @@
+package com.williamssonoma.ziprange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeGeneratorTest {
+    @Test
+    public void testDeterministic() throws IOException {
+        ZipRangeGenerator generator = new ZipRangeGenerator()
+                .count(1000)
+                .malformed(0.1)
+                .seed(42);
+
+        Assert.assertArrayEquals(generate(generator), generate(generator));
+        Assert.assertFalse(new String(generate(generator.seed(43)), StandardCharsets.US_ASCII)
+                .equals(new String(generate(generator.seed(42)), StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testCount() {
+        List<ZipRange> ranges = new ZipRangeGenerator()
+                .count(1001)
+                .perLine(10)
+                .generate();
+
+        Assert.assertEquals(1001, ranges.size());
+    }
+
+    @Test
+    public void testMalformed() {
+        Assert.assertEquals(0, new ZipRangeGenerator()
+                .count(100)
+                .malformed(1)
+                .generate().size());
+
+        int parsed = new ZipRangeGenerator()
+                .count(10000)
+                .malformed(0.25)
+                .generate().size();
+
+        Assert.assertTrue(parsed > 7000 && parsed < 8000);
+    }
+
+    @Test
+    public void testAscending() {
+        List<ZipRange> ranges = new ZipRangeGenerator()
+                .count(100000)
+                .order(ZipRangeGenerator.Order.ASCENDING)
+                .overlap(0.5)
+                .adjacency(0.2)
+                .seed(1)
+                .generate();
+
+        for (int i = 1; i < ranges.size(); i++) {
+            Assert.assertTrue(ranges.get(i - 1).getLow().compareTo(ranges.get(i).getLow()) <= 0);
+        }
+    }
+
+    @Test
+    public void testDescending() {
+        List<ZipRange> ranges = new ZipRangeGenerator()
+                .count(100000)
+                .order(ZipRangeGenerator.Order.DESCENDING)
+                .seed(1)
+                .generate();
+
+        for (int i = 1; i < ranges.size(); i++) {
+            Assert.assertTrue(ranges.get(i - 1).getLow().compareTo(ranges.get(i).getLow()) >= 0);
+        }
+    }
+
+    @Test
+    public void testOverlapAndAdjacency() {
+        List<ZipRange> ranges = new ZipRangeGenerator()
+                .count(10000)
+                .overlap(0.4)
+                .adjacency(0.3)
+                .generate();
+
+        int overlapping = 0;
+        int adjacent = 0;
+
+        for (int i = 1; i < ranges.size(); i++) {
+            ZipRange a = ranges.get(i - 1);
+            ZipRange b = ranges.get(i);
+
+            if (b.getLow().compareTo(a.getLow()) >= 0 && b.getLow().compareTo(a.getHigh()) <= 0) {
+                overlapping++;
+            }
+            else if (b.getLow().equals(a.getHigh().next())) {
+                adjacent++;
+            }
+        }
+
+        Assert.assertTrue(overlapping > 3800 && overlapping < 4200);
+        Assert.assertTrue(adjacent > 2800 && adjacent < 3200);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRatios() {
+        new ZipRangeGenerator()
+                .overlap(0.6)
+                .adjacency(0.6)
+                .generate();
+    }
+
+    private static byte[] generate(ZipRangeGenerator generator) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        generator.generate(out);
+
+        return out.toByteArray();
+    }
+}
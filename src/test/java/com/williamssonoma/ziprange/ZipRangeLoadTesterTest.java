@@ -0,0 +1,30 @@
+package com.williamssonoma.ziprange;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeLoadTesterTest {
+    /**
+     * Absolute path to src/test/resources.
+     */
+    private static final Path TEST_RESOURCES_PATH =
+            Paths.get("src","test","resources").toAbsolutePath();
+
+    @Test
+    public void testRun() {
+        List<ZipRangeLoadTester.Phase> phases = ZipRangeLoadTester.run(new String[] {
+                "[12345,23556] [23456,45677]",
+                TEST_RESOURCES_PATH + "/input.txt" });
+
+        Assert.assertEquals(2, phases.size());
+        Assert.assertEquals("parse", phases.get(0).getName());
+        Assert.assertEquals("consolidate", phases.get(1).getName());
+        Assert.assertEquals(6, phases.get(0).getRanges());
+        Assert.assertEquals(6, phases.get(1).getRanges());
+        Assert.assertTrue(phases.get(0).getMegabytesPerSecond() > 0);
+    }
+}
@@ -0,0 +1,129 @@
+package com.williamssonoma.ziprange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeParserTest {
+    @Test
+    public void testEightDigits() {
+        Assert.assertTrue(ZipRangeParser.eightDigits(word("00000000")));
+        Assert.assertTrue(ZipRangeParser.eightDigits(word("99999999")));
+        Assert.assertFalse(ZipRangeParser.eightDigits(word("0000000/")));
+        Assert.assertFalse(ZipRangeParser.eightDigits(word(":0000000")));
+        Assert.assertFalse(ZipRangeParser.eightDigits(word("0000a000")));
+    }
+
+    @Test
+    public void testDecode() {
+        Assert.assertEquals(0, ZipRangeParser.decode(word("00000000")));
+        Assert.assertEquals(12345, ZipRangeParser.decode(word("00012345")));
+        Assert.assertEquals(99999, ZipRangeParser.decode(word("00099999")));
+        Assert.assertEquals(12345678, ZipRangeParser.decode(word("12345678")));
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertEquals(
+                Arrays.asList(
+                        new ZipRange(ZipCode.valueOf("00000"), ZipCode.valueOf("99999")),
+                        new ZipRange(ZipCode.valueOf("00123"), ZipCode.valueOf("01230")),
+                        new ZipRange(ZipCode.valueOf("12345"), ZipCode.valueOf("23456"))),
+                parse("[00000,99999]\t\n [01230,00123]\r\n[0, 2] x[12345,23456]x [1234a,12345]"));
+
+        Assert.assertEquals(Collections.emptyList(), parse(""));
+        Assert.assertEquals(Collections.emptyList(), parse(" \n "));
+    }
+
+    @Test
+    public void testFallback() {
+        // every single-byte corruption of a well-formed token agrees with the regular expression
+        byte[] token = "[12345,67890]".getBytes(StandardCharsets.US_ASCII);
+        byte[] replacements = "[],09/:a".getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 0; i < token.length; i++) {
+            for (byte replacement : replacements) {
+                byte[] corrupted = token.clone();
+                corrupted[i] = replacement;
+
+                String text = new String(corrupted, StandardCharsets.US_ASCII);
+                ZipRange expected = ZipRange.parseRange(text);
+
+                Assert.assertEquals(
+                        text,
+                        expected == null ? Collections.emptyList() : Collections.singletonList(expected),
+                        parse(text));
+            }
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(9);
+
+        for (int i = 0; i < 10000; i++) {
+            int a = random.nextInt(100000);
+            int b = random.nextInt(100000);
+
+            Assert.assertEquals(
+                    Collections.singletonList(new ZipRange(ZipCode.valueOf(a), ZipCode.valueOf(b))),
+                    parse(String.format("[%05d,%05d]", a, b)));
+        }
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        String text = "[00001,00002] [00003,00004]\n[00005,00006]\n\n[00007,00008] [0009,00010]";
+        Path file = Files.createTempFile("ranges", ".txt");
+
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+
+            // regions as small as a token up to the whole file
+            for (int mapping : new int[] { 13, 14, 20, 1 << 20 }) {
+                List<ZipRange> ranges = new ArrayList<>();
+
+                ZipRangeParser.parse(file, ranges::add, mapping);
+
+                Assert.assertEquals(
+                        "mapping " + mapping,
+                        Arrays.asList(
+                                new ZipRange(ZipCode.valueOf("00001"), ZipCode.valueOf("00002")),
+                                new ZipRange(ZipCode.valueOf("00003"), ZipCode.valueOf("00004")),
+                                new ZipRange(ZipCode.valueOf("00005"), ZipCode.valueOf("00006")),
+                                new ZipRange(ZipCode.valueOf("00007"), ZipCode.valueOf("00008"))),
+                        ranges);
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<ZipRange> parse(String text) {
+        List<ZipRange> ranges = new ArrayList<>();
+
+        ZipRangeParser.parse(text, ranges::add);
+
+        return ranges;
+    }
+
+    private static long word(String digits) {
+        long word = 0;
+
+        for (int i = 7; i >= 0; i--) {
+            word = word << 8 | digits.charAt(i);
+        }
+
+        return word;
+    }
+}
@@ -0,0 +1,130 @@
+package com.williamssonoma.ziprange;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangePartitionerTest {
+    @Test
+    public void testShardOf() {
+        ZipRangePartitioner prefixes = new ZipRangePartitioner(10, 1);
+
+        Assert.assertEquals(0, prefixes.shardOf(0));
+        Assert.assertEquals(0, prefixes.shardOf(9999));
+        Assert.assertEquals(1, prefixes.shardOf(10000));
+        Assert.assertEquals(9, prefixes.shardOf(99999));
+
+        for (int shards : new int[] { 1, 3, 7, 10, 100, 99999, 100000 }) {
+            ZipRangePartitioner partitioner = new ZipRangePartitioner(shards, 1);
+
+            for (int code = 0; code < 100000; code += 37) {
+                int shard = partitioner.shardOf(code);
+
+                Assert.assertTrue(partitioner.start(shard) <= code && code < partitioner.start(shard + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        ZipRangePartitioner partitioner = new ZipRangePartitioner(10, 1);
+        List<String> parts = new ArrayList<>();
+
+        partitioner.split(
+                new ZipRange(ZipCode.valueOf("09000"), ZipCode.valueOf("30000")),
+                (shard, low, high) -> parts.add(shard + ":" + low + "-" + high));
+
+        Assert.assertEquals(Arrays.asList("0:9000-9999", "1:10000-19999", "2:20000-29999", "3:30000-30000"), parts);
+    }
+
+    @Test
+    public void testStitch() {
+        Assert.assertEquals(
+                "[00000,00010] [09990,10005] [20000,20000]",
+                ZipRangePartitioner.stitch(new int[][] {
+                    { 0, 10, 9990, 9999 },
+                    { 10000, 10005 },
+                    null,
+                    { 20000, 20000 } }).toString());
+    }
+
+    @Test
+    public void testConsolidate() throws IOException {
+        Path file = Files.createTempFile("ranges", ".txt");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                new ZipRangeGenerator()
+                        .count(20000)
+                        .overlap(0.2)
+                        .adjacency(0.3)
+                        .width(40)
+                        .seed(8)
+                        .generate(out);
+            }
+
+            String[] args = { file.toString(), "[09990,10009] [19999,20000]" };
+            String expected = ZipRange.consolidate(ZipRange.parseRanges(args)).stream()
+                    .map(Object::toString)
+                    .collect(Collectors.joining(" "));
+
+            // prefix shards and uneven shards, fewer workers than shards
+            Assert.assertEquals(expected, new ZipRangePartitioner(10, 3).consolidate(args).toString());
+            Assert.assertEquals(expected, new ZipRangePartitioner(7, 2).consolidate(args).toString());
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testAcceptToken() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+                Socket forged = new Socket(server.getInetAddress(), server.getLocalPort());
+                Socket worker = new Socket(server.getInetAddress(), server.getLocalPort())) {
+            new DataOutputStream(forged.getOutputStream()).writeLong(41);
+            new DataOutputStream(worker.getOutputStream()).writeLong(42);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+            Assert.assertNull(ZipRangePartitioner.accept(server, 42, deadline));
+
+            try (Socket accepted = ZipRangePartitioner.accept(server, 42, deadline)) {
+                Assert.assertEquals(worker.getLocalPort(), accepted.getPort());
+            }
+        }
+    }
+
+    @Test
+    public void testConsolidateEveryShard() throws IOException {
+        // one wide range touches every shard
+        Assert.assertEquals(
+                "[00000,99999]",
+                new ZipRangePartitioner(100000, 1).consolidate(new String[] { "[00000,99999]" }).toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testConsolidateUnreadableFile() throws IOException {
+        Path dir = Files.createTempDirectory("ranges");
+
+        try {
+            new ZipRangePartitioner(2, 1).consolidate(new String[] { "[00000,00010]", dir.toString() });
+        }
+        finally {
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.williamssonoma.ziprange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZipRangeSetTest {
+    private static final ZipRangeSet SET = new ZipRangeSet(ZipRange.parseRanges(new String[] {
+            "[00010,00020] [00015,00030] [00031,00040] [00050,00050] [01000,01999] [99990,99998]" }));
+
+    @Test
+    public void testSize() {
+        Assert.assertEquals(4, SET.size());
+    }
+
+    @Test
+    public void testCeiling() {
+        Assert.assertEquals(ZipCode.valueOf("00010"), SET.ceiling(ZipCode.valueOf("00000")));
+        Assert.assertEquals(ZipCode.valueOf("00025"), SET.ceiling(ZipCode.valueOf("00025")));
+        Assert.assertEquals(ZipCode.valueOf("00050"), SET.ceiling(ZipCode.valueOf("00041")));
+        Assert.assertEquals(ZipCode.valueOf("01000"), SET.ceiling(ZipCode.valueOf("00051")));
+        Assert.assertNull(SET.ceiling(ZipCode.valueOf("99999")));
+    }
+
+    @Test
+    public void testFloor() {
+        Assert.assertNull(SET.floor(ZipCode.valueOf("00009")));
+        Assert.assertEquals(ZipCode.valueOf("00010"), SET.floor(ZipCode.valueOf("00010")));
+        Assert.assertEquals(ZipCode.valueOf("00040"), SET.floor(ZipCode.valueOf("00049")));
+        Assert.assertEquals(ZipCode.valueOf("99998"), SET.floor(ZipCode.valueOf("99999")));
+    }
+
+    @Test
+    public void testNextGap() {
+        Assert.assertEquals("[00000,00009]", SET.nextGap(ZipCode.valueOf("00005")).toString());
+        Assert.assertEquals("[00041,00049]", SET.nextGap(ZipCode.valueOf("00010")).toString());
+        Assert.assertEquals("[00041,00049]", SET.nextGap(ZipCode.valueOf("00045")).toString());
+        Assert.assertEquals("[00051,00999]", SET.nextGap(ZipCode.valueOf("00050")).toString());
+        Assert.assertEquals("[99999,99999]", SET.nextGap(ZipCode.valueOf("99990")).toString());
+
+        ZipRangeSet full = new ZipRangeSet(ZipRange.parseRanges(new String[] { "[00000,99999]" }));
+
+        Assert.assertNull(full.nextGap(ZipCode.valueOf("12345")));
+        Assert.assertEquals(-1, full.nextGap(12345));
+    }
+
+    @Test
+    public void testTopKGaps() {
+        Assert.assertEquals(
+                ZipRange.parseRanges(new String[] { "[02000,99989] [00051,00999] [00000,00009]" }),
+                SET.topKGaps(3));
+
+        Assert.assertEquals(5, SET.topKGaps(10).size());
+        Assert.assertEquals(Collections.emptyList(), SET.topKGaps(0));
+        Assert.assertEquals(
+                ZipRange.parseRanges(new String[] { "[00000,99999]" }),
+                new ZipRangeSet(Collections.emptyList()).topKGaps(2));
+    }
+
+    @Test
+    public void testUnion() {
+        List<ZipRange> all = new ArrayList<>();
+        List<ZipRangeSet> sets = new ArrayList<>();
+
+        for (int s = 0; s < 10; s++) {
+            List<ZipRange> ranges = new ZipRangeGenerator().count(50).width(1000).seed(s).generate();
+
+            all.addAll(ranges);
+            sets.add(new ZipRangeSet(ranges));
+        }
+
+        sets.add(new ZipRangeSet(Collections.emptyList()));
+
+        Assert.assertEquals(new ZipRangeSet(all).toString(), ZipRangeSet.union(sets).toString());
+        Assert.assertEquals("", ZipRangeSet.union(Collections.emptyList()).toString());
+        Assert.assertEquals(
+                "[00010,00050]",
+                ZipRangeSet.union(Arrays.asList(
+                        new ZipRangeSet(ZipRange.parseRanges(new String[] { "[00010,00020]" })),
+                        new ZipRangeSet(ZipRange.parseRanges(new String[] { "[00021,00050]" })))).toString());
+    }
+
+    @Test
+    public void testRandom() {
+        List<ZipRange> ranges = new ZipRangeGenerator().count(500).seed(5).generate();
+        ZipRangeSet set = new ZipRangeSet(ranges);
+        boolean[] covered = new boolean[100000];
+
+        for (ZipRange r : ranges) {
+            Arrays.fill(covered, r.getLow().intValue(), r.getHigh().intValue() + 1, true);
+        }
+
+        List<ZipRange> gaps = new ArrayList<>();
+
+        for (int code = 0; code < covered.length; code++) {
+            int ceiling = code;
+            int floor = code;
+
+            while (ceiling < covered.length && !covered[ceiling]) {
+                ceiling++;
+            }
+
+            while (floor >= 0 && !covered[floor]) {
+                floor--;
+            }
+
+            Assert.assertEquals(covered[code], set.contains(code));
+            Assert.assertEquals(ceiling == covered.length ? -1 : ceiling, set.ceiling(code));
+            Assert.assertEquals(floor, set.floor(code));
+
+            if (!covered[code] && (code == 0 || covered[code - 1])) {
+                int high = code;
+
+                while (high + 1 < covered.length && !covered[high + 1]) {
+                    high++;
+                }
+
+                gaps.add(new ZipRange(ZipCode.valueOf(code), ZipCode.valueOf(high)));
+            }
+        }
+
+        gaps.sort(Comparator
+                .comparingInt((ZipRange g) -> g.getLow().intValue() - g.getHigh().intValue())
+                .thenComparing(Comparator.naturalOrder()));
+
+        Assert.assertEquals(gaps.subList(0, 20), set.topKGaps(20));
+        Assert.assertEquals(gaps, set.topKGaps(Integer.MAX_VALUE));
+    }
+}
@@ -274,4 +274,23 @@ public class ZipRangeTest {
 
         Assert.assertEquals(expectedRanges, ranges);
     }
+
+    @Test
+    public void testParseRangesUnreadableFile() {
+        ZipRange a = new ZipRange(
+                ZipCode.valueOf("00000"),
+                ZipCode.valueOf("00010"));
+
+        ZipRange b = new ZipRange(
+                ZipCode.valueOf("12345"),
+                ZipCode.valueOf("23456"));
+
+        // a directory exists but cannot be read as a file of ranges
+        String[] args = {
+                "[00000,00010]",
+                TEST_RESOURCES_PATH.toString(),
+                "[12345,23456]" };
+
+        Assert.assertEquals(Arrays.asList(a, b), ZipRange.parseRanges(args));
+    }
 }